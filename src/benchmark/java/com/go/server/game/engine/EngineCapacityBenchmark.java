@@ -0,0 +1,224 @@
+package com.go.server.game.engine;
+
+import com.go.server.game.engine.gtp.*;
+import com.go.server.game.model.DeviceMove;
+import com.go.server.game.model.EndGame;
+import com.go.server.game.model.Game;
+import com.go.server.game.model.ScoringRules;
+import com.go.server.game.session.BotMoveScheduler;
+import com.go.server.game.session.SessionMailboxes;
+import com.go.server.game.session.model.BotDifficulty;
+import com.go.server.game.session.model.Session;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Lets every game ask for a bot move at once against a fake GTP server that thinks for a fixed
+ * time, once with genmove blocking an engine worker and once with the multiplexed transport.
+ * The multiplexed transport is measured once more behind the bot move scheduler and the session
+ * mailboxes, the path bot moves take in production. One operation is a whole round, so {@code games / score} is the bot moves served per millisecond.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=EngineCapacityBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EngineCapacityBenchmark {
+    private static final int WORKERS = 16;
+    private static final int BOT_WORKERS = 4;
+    private static final Duration DEADLINE = Duration.ofMinutes(1);
+
+    @Param({"64", "256", "1024"})
+    public int games;
+
+    @Param({"50"})
+    public int latencyMillis;
+
+    private LatencyGtpServer server;
+    private GtpEventLoop loop;
+    private GtpBackendRouter router;
+    private Ponderer ponderer;
+    private EngineWorkScheduler scheduler;
+    private DelegatingAsyncGameEngine blocking;
+    private DelegatingAsyncGameEngine multiplexed;
+    private BotMoveScheduler botMoveScheduler;
+    private SessionMailboxes mailboxes;
+    private List<Session> sessions;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new LatencyGtpServer(latencyMillis);
+        loop = new GtpEventLoop(2);
+
+        final var registry = new SimpleMeterRegistry();
+        final var pool = new GtpConnectionPool(() -> GtpConnection.open("localhost", server.getPort(), loop, 1000, 60000),
+                0, games + 1, Duration.ofMinutes(5), Duration.ofSeconds(30), Duration.ofMinutes(5), "protocol_version");
+        router = new GtpBackendRouter(List.of(new GtpBackend("fake", pool, 3, Duration.ofSeconds(30))), "protocol_version");
+
+        final var metrics = new GnuGoMetrics(registry);
+        final var noCaching = Arrays.stream(BotDifficulty.values()).collect(Collectors.toMap(d -> d, d -> GenmoveCachePolicy.NEVER));
+        final var strengthPolicy = new BotStrengthPolicy(registry, 60000, 0);
+        scheduler = new EngineWorkScheduler(registry, strengthPolicy, WORKERS, games, 1);
+        ponderer = new Ponderer(registry, metrics, scheduler, false, 3, 1);
+        final var engine = new GnuGoGameEngine(router, new GtpBoardBindings(router, games, 600000), new SessionBoardCache(games),
+                new GenmoveCache(registry, 1, noCaching, 0, Optional.empty()), metrics,
+                strengthPolicy, ponderer,
+                new WarmBoardPool(router, registry, false, new int[0], 0, 0, 0, 5.5), new GameScorer(ScoringRules.TERRITORY, 5.5), true, true);
+
+        blocking = new DelegatingAsyncGameEngine(new BlockingGameEngine(engine), scheduler);
+        multiplexed = new DelegatingAsyncGameEngine(engine, scheduler);
+        botMoveScheduler = new BotMoveScheduler(registry, BOT_WORKERS, games, games);
+        mailboxes = new SessionMailboxes(registry, 16);
+
+        sessions = new ArrayList<>();
+        for (int i = 0; i < games; i++) {
+            sessions.add(new Session(Instant.now(), BotDifficulty.MEDIUM, 9));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        botMoveScheduler.close();
+        blocking.close();
+        multiplexed.close();
+        scheduler.close();
+        ponderer.close();
+        router.close();
+        loop.close();
+        server.close();
+    }
+
+    @Benchmark
+    public List<Optional<DeviceMove>> blockingGenmove() {
+        return round(blocking);
+    }
+
+    @Benchmark
+    public List<Optional<DeviceMove>> multiplexedGenmove() {
+        return round(multiplexed);
+    }
+
+    @Benchmark
+    public long scheduledGenmove() throws InterruptedException {
+        final var played = new CountDownLatch(games);
+        sessions.forEach(session -> botMoveScheduler.schedule(session.getId(), BotDifficulty.MEDIUM,
+                () -> mailboxes.submit(session.getId(), () -> multiplexed.generateMove(session, DEADLINE)
+                        .thenAccept(move -> played.countDown()))));
+        played.await();
+        return played.getCount();
+    }
+
+    private List<Optional<DeviceMove>> round(final AsyncGameEngine engine) {
+        final var moves = sessions.stream().map(session -> engine.generateMove(session, DEADLINE)).toList();
+        return moves.stream().map(CompletableFuture::join).toList();
+    }
+
+    /**
+     * Hides the non-blocking genmove, like an engine whose transport waits on the socket.
+     */
+    private record BlockingGameEngine(GameEngine engine) implements GameEngine {
+        @Override
+        public Game processMove(final Session session, final DeviceMove move) {
+            return engine.processMove(session, move);
+        }
+
+        @Override
+        public Optional<DeviceMove> generateMove(final Session session) {
+            return engine.generateMove(session);
+        }
+
+        @Override
+        public Game getGameState(final Session session) {
+            return engine.getGameState(session);
+        }
+
+        @Override
+        public Game undoMoves(final Session session, final int count) {
+            return engine.undoMoves(session, count);
+        }
+
+        @Override
+        public EndGame getScore(final Session session) {
+            return engine.getScore(session);
+        }
+
+        @Override
+        public void releaseSession(final Session session) {
+            engine.releaseSession(session);
+        }
+    }
+
+    /**
+     * Answers every command, and thinks for the configured time before answering a genmove.
+     * Connections are served on virtual threads, so the server itself is not the bottleneck.
+     */
+    private static final class LatencyGtpServer implements AutoCloseable {
+        private final ServerSocket serverSocket = new ServerSocket(0, 4096);
+        private final long latencyMillis;
+
+        private LatencyGtpServer(final long latencyMillis) throws IOException {
+            this.latencyMillis = latencyMillis;
+            Thread.ofVirtual().start(() -> {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        final var socket = serverSocket.accept();
+                        Thread.ofVirtual().start(() -> serve(socket));
+                    } catch (IOException ignored) {
+                        // Closed
+                    }
+                }
+            });
+        }
+
+        private int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        private void serve(final Socket socket) {
+            try (socket) {
+                final var reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                final OutputStream writer = socket.getOutputStream();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    final var space = line.indexOf(' ');
+                    final var id = space > 0 && Character.isDigit(line.charAt(0)) ? line.substring(0, space) : "";
+                    final var command = id.isEmpty() ? line : line.substring(space + 1);
+                    var body = "";
+                    if (command.startsWith("reg_genmove")) {
+                        Thread.sleep(latencyMillis);
+                        body = " E5";
+                    }
+                    writer.write(("=" + id + body + "\n\n").getBytes(StandardCharsets.US_ASCII));
+                    writer.flush();
+                }
+            } catch (IOException | InterruptedException ignored) {
+                // Connection dropped
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.go.server.game.engine;
+
+import com.go.server.game.model.EndGame;
+import com.go.server.game.model.GameRecord;
+import com.go.server.game.model.ScoringRules;
+import com.go.server.game.session.model.Colors;
+import com.go.server.game.session.model.Player;
+import com.go.server.game.session.model.Session;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scores a batch of finished 19x19 games in-process, one after another.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=GameScorerBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameScorerBenchmark {
+    private static final int SIZE = 19;
+    private static final int MOVES = 250;
+
+    @Param({"1000", "4000"})
+    public int games;
+
+    @Param({"AREA", "TERRITORY"})
+    public ScoringRules rules;
+
+    private GameScorer scorer;
+    private List<FinishedGame> finished;
+
+    @Setup
+    public void setUp() {
+        scorer = new GameScorer(rules, 6.5);
+        final var random = new Random(42);
+        finished = new ArrayList<>(games);
+        for (int i = 0; i < games; i++) {
+            final var session = new Session(Instant.now(), null, SIZE);
+            session.addPlayer(Player.human(UUID.randomUUID(), Colors.BLACK));
+            session.addPlayer(Player.human(UUID.randomUUID(), Colors.WHITE));
+            finished.add(new FinishedGame(session, randomGame(random)));
+        }
+    }
+
+    @Benchmark
+    public List<EndGame> score() {
+        return finished.stream()
+                .map(game -> scorer.score(game.session(), game.record(), List.of()))
+                .toList();
+    }
+
+    private static GameRecord randomGame(final Random random) {
+        final var record = new GameRecord(SIZE);
+        while (record.getMoveCount() < MOVES) {
+            final var x = random.nextInt(SIZE);
+            final var y = random.nextInt(SIZE);
+            if (record.check(x, y).isLegal()) {
+                record.play(x, y);
+            }
+        }
+        return record;
+    }
+
+    private record FinishedGame(Session session, GameRecord record) {
+    }
+}
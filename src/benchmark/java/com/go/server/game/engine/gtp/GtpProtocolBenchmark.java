@@ -0,0 +1,106 @@
+package com.go.server.game.engine.gtp;
+
+import com.go.server.game.model.Board;
+import com.go.server.game.model.StoneState;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Parses a recorded {@code play} + {@code list_stones} batch of a 19x19 middle game into a board,
+ * once with the former reader based client and once with the byte level parser.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=GtpProtocolBenchmark -Dbenchmark.args="-prof gc"}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GtpProtocolBenchmark {
+    private static final int SIZE = 19;
+
+    private byte[] recorded;
+    private GtpResponseReader reader;
+    private int position;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (var stream = GtpProtocolBenchmark.class.getResourceAsStream("/gtp/midgame-19x19.gtp")) {
+            recorded = stream.readAllBytes();
+        }
+        reader = new GtpResponseReader(ByteBuffer.allocateDirect(16 * 1024));
+    }
+
+    @Benchmark
+    public Board readerClient() throws IOException {
+        final var in = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(recorded)));
+        LegacyParser.read(in);
+        final var black = LegacyParser.parseStoneList(LegacyParser.read(in));
+        final var white = LegacyParser.parseStoneList(LegacyParser.read(in));
+
+        final var board = new Board(SIZE);
+        black.forEach(coord -> board.place(GtpCoordinates.toX(coord), GtpCoordinates.toY(coord, SIZE), StoneState.Black));
+        white.forEach(coord -> board.place(GtpCoordinates.toX(coord), GtpCoordinates.toY(coord, SIZE), StoneState.White));
+        return board;
+    }
+
+    @Benchmark
+    public Board byteParser(final Blackhole blackhole) throws IOException {
+        position = 0;
+        reader.clear();
+        final GtpResponseReader.Source source = buffer -> {
+            if (position == recorded.length) return -1;
+            final var length = Math.min(buffer.remaining(), recorded.length - position);
+            buffer.put(recorded, position, length);
+            position += length;
+            return length;
+        };
+
+        blackhole.consume(reader.read(source));
+        final var black = reader.read(source);
+        final var white = reader.read(source);
+
+        final var board = new Board(SIZE);
+        black.forEachVertex(SIZE, (x, y) -> board.place(x, y, StoneState.Black));
+        white.forEachVertex(SIZE, (x, y) -> board.place(x, y, StoneState.White));
+        return board;
+    }
+
+    /**
+     * The response handling of the client before it moved to NIO.
+     */
+    private static final class LegacyParser {
+        private static String read(final BufferedReader reader) throws IOException {
+            final var sb = new StringBuilder();
+            String line;
+            boolean firstLine = true;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() && !firstLine) break;
+                sb.append(line).append("\n");
+                firstLine = false;
+            }
+            final var text = sb.toString().trim();
+            // Strip the status and id
+            final var space = text.indexOf(' ');
+            return space < 0 ? "" : text.substring(space + 1);
+        }
+
+        private static Set<String> parseStoneList(final String list) {
+            if (list.isEmpty()) return Collections.emptySet();
+            return Arrays.stream(list.split("\\s+"))
+                    .map(String::toUpperCase)
+                    .collect(Collectors.toSet());
+        }
+    }
+}
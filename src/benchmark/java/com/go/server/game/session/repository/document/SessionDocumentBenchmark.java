@@ -0,0 +1,102 @@
+package com.go.server.game.session.repository.document;
+
+import com.go.server.game.engine.SessionBoardCache;
+import com.go.server.game.engine.gtp.GtpCoordinates;
+import com.go.server.game.model.GameRecord;
+import com.go.server.game.session.model.Colors;
+import com.go.server.game.session.model.Player;
+import com.go.server.game.session.model.Session;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads a 250 move 19x19 game from a session document, with the moves stored as strings like
+ * before and packed, and additionally replays it as the first engine call after loading does.
+ * The Firestore storage size of the moves is reported as the {@code storedBytes} counter of the load benchmarks.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=SessionDocumentBenchmark -Dbenchmark.args="-prof gc"}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionDocumentBenchmark {
+    private static final int SIZE = 19;
+    private static final int MOVES = 250;
+
+    private SessionDocument legacy;
+    private SessionDocument packed;
+    private long legacyBytes;
+    private long packedBytes;
+
+    @Setup
+    public void setUp() {
+        final var session = new Session(Instant.now(), null, SIZE);
+        session.addPlayer(Player.human(UUID.randomUUID(), Colors.BLACK));
+        session.addPlayer(Player.human(UUID.randomUUID(), Colors.WHITE));
+        randomGame().forEach(session::addMove);
+
+        packed = SessionDocument.fromSession(session);
+        legacy = SessionDocument.fromSession(session);
+        legacy.moveData = null;
+        legacy.moves = List.copyOf(session.getMoves());
+
+        // Firestore counts a field as its name plus one, strings as their bytes plus one
+        legacyBytes = "moves".length() + 1 + legacy.moves.stream()
+                .mapToInt(move -> move.getBytes(StandardCharsets.UTF_8).length + 1)
+                .sum();
+        packedBytes = "moveData".length() + 1 + packed.moveData.toBytes().length + "moves".length() + 1 + 1;
+    }
+
+    @Benchmark
+    public Session loadStrings(final Stored stored) {
+        stored.storedBytes = legacyBytes;
+        return SessionDocument.toSession(legacy);
+    }
+
+    @Benchmark
+    public Session loadPacked(final Stored stored) {
+        stored.storedBytes = packedBytes;
+        return SessionDocument.toSession(packed);
+    }
+
+    @Benchmark
+    public GameRecord replayStrings() {
+        return new SessionBoardCache(1).replay(SessionDocument.toSession(legacy));
+    }
+
+    @Benchmark
+    public GameRecord replayPacked() {
+        return new SessionBoardCache(1).replay(SessionDocument.toSession(packed));
+    }
+
+    // JMH resets the counters after the setup, so the benchmarks report the size themselves
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Stored {
+        public long storedBytes;
+    }
+
+    private static List<String> randomGame() {
+        final var random = new Random(42);
+        final var record = new GameRecord(SIZE);
+        final var moves = new ArrayList<String>();
+        while (moves.size() < MOVES) {
+            final var x = random.nextInt(SIZE);
+            final var y = random.nextInt(SIZE);
+            if (record.check(x, y).isLegal()) {
+                record.play(x, y);
+                moves.add(GtpCoordinates.toGtp(x, y, SIZE));
+            }
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,31 @@
+package com.go.server.game.engine;
+
+import com.go.server.game.model.DeviceMove;
+import com.go.server.game.model.EndGame;
+import com.go.server.game.model.Game;
+import com.go.server.game.session.model.Session;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking variant of {@link GameEngine}. Every call completes exceptionally with a
+ * {@link java.util.concurrent.TimeoutException} once its deadline passed, and cancelling a
+ * returned future stops the engine work if it did not finish yet.
+ */
+public interface AsyncGameEngine {
+    CompletableFuture<Game> processMove(Session session, DeviceMove move, Duration deadline);
+
+    CompletableFuture<Optional<DeviceMove>> generateMove(Session session, Duration deadline);
+
+    CompletableFuture<Game> getGameState(Session session, Duration deadline);
+
+    CompletableFuture<Game> undoMoves(Session session, int count, Duration deadline);
+
+    CompletableFuture<EndGame> getScore(Session session, Duration deadline);
+
+    void prepareSession(Session session);
+
+    void releaseSession(Session session);
+}
@@ -0,0 +1,82 @@
+package com.go.server.game.engine;
+
+import com.go.server.game.session.model.BotDifficulty;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lowers the GnuGo level of bot moves while bot moves wait for an engine worker longer than the queue wait SLO, so
+ * reply latency stays bounded during peaks. The level shrinks in proportion to how far the
+ * smoothed queue wait exceeds the SLO and recovers as the queue drains.
+ */
+@Component
+public class BotStrengthPolicy {
+    private static final double SMOOTHING = 0.3;
+    private static final int MIN_LEVEL = 1;
+
+    private final Logger logger = LoggerFactory.getLogger(BotStrengthPolicy.class);
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong smoothedWait = new AtomicLong();
+    private final Duration queueWaitSlo;
+    private final Duration moveTime;
+
+    public BotStrengthPolicy(final MeterRegistry meterRegistry,
+                             @Value("${game.bot.queue-wait-slo:2000}") final long queueWaitSlo,
+                             @Value("${game.bot.move-time:10000}") final long moveTime) {
+        this.meterRegistry = meterRegistry;
+        this.queueWaitSlo = Duration.ofMillis(queueWaitSlo);
+        this.moveTime = Duration.ofMillis(moveTime);
+        Gauge.builder("game.bot.queue.wait.smoothed", smoothedWait, wait -> wait.get() / 1_000_000.0)
+                .description("Smoothed bot queue wait the level downgrade is based on")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    public void recordQueueWait(final Duration wait) {
+        smoothedWait.accumulateAndGet(wait.toNanos(), (current, sample) -> (long) (current + SMOOTHING * (sample - current)));
+    }
+
+    public int effectiveLevel(final BotDifficulty difficulty, final int level) {
+        final var downgraded = downgrade(level);
+        if (downgraded < level) {
+            logger.debug("Bot queue wait {}x over its SLO, lowering level of {} bot from {} to {}",
+                    String.format("%.1f", overload()), difficulty, level, downgraded);
+            meterRegistry.counter("game.bot.downgrades", "difficulty", difficulty.name().toLowerCase()).increment();
+        }
+        return downgraded;
+    }
+
+    /**
+     * Whether bot moves at the level are currently played lower, without counting a downgrade.
+     */
+    public boolean isDowngrading(final int level) {
+        return downgrade(level) < level;
+    }
+
+    private int downgrade(final int level) {
+        final var overload = overload();
+        return overload <= 1 ? level : Math.max(MIN_LEVEL, (int) (level / overload));
+    }
+
+    private double overload() {
+        return queueWaitSlo.isZero() ? 0 : (double) smoothedWait.get() / queueWaitSlo.toNanos();
+    }
+
+    /**
+     * Think time granted per generated move. Zero lets GnuGo take as long as its level needs.
+     */
+    public Duration getMoveTime() {
+        return moveTime;
+    }
+
+    public Duration getSmoothedQueueWait() {
+        return Duration.ofNanos(smoothedWait.get());
+    }
+}
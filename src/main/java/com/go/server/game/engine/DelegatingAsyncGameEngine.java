@@ -0,0 +1,144 @@
+package com.go.server.game.engine;
+
+import com.go.server.game.engine.exception.EngineUnavailableException;
+import com.go.server.game.model.DeviceMove;
+import com.go.server.game.model.EndGame;
+import com.go.server.game.model.Game;
+import com.go.server.game.session.model.Session;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs the blocking {@link GameEngine} on the {@link EngineWorkScheduler}, so callers never wait for
+ * engine work and cheap calls overtake expensive ones.
+ * <p>
+ * Results are completed on a worker or on virtual threads of their own, never on the thread that
+ * answered or timed out the call, such as the GTP event loop: the callers continue on that thread,
+ * up to the blocking reads of the next session command.
+ */
+@Service
+public class DelegatingAsyncGameEngine implements AsyncGameEngine {
+    private final Logger logger = LoggerFactory.getLogger(DelegatingAsyncGameEngine.class);
+    private final GameEngine gameEngine;
+    private final EngineWorkScheduler scheduler;
+    private final ExecutorService completions = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("game-engine-completion-", 1).factory());
+    private final ScheduledThreadPoolExecutor deadlines = new ScheduledThreadPoolExecutor(1, runnable -> {
+        final var thread = new Thread(runnable, "game-engine-deadline");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DelegatingAsyncGameEngine(final GameEngine gameEngine, final EngineWorkScheduler scheduler) {
+        this.gameEngine = gameEngine;
+        this.scheduler = scheduler;
+        // Met deadlines would otherwise stay queued until they expire
+        deadlines.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    public CompletableFuture<Game> processMove(final Session session, final DeviceMove move, final Duration deadline) {
+        return submit(EnginePriority.MOVE, session, deadline, () -> gameEngine.processMove(session, move));
+    }
+
+    @Override
+    public CompletableFuture<Optional<DeviceMove>> generateMove(final Session session, final Duration deadline) {
+        // The worker only starts the move, waiting for the engine does not hold it
+        return submitAsync(EnginePriority.BOT_MOVE, session, deadline, () -> gameEngine.generateMoveAsync(session));
+    }
+
+    @Override
+    public CompletableFuture<Game> getGameState(final Session session, final Duration deadline) {
+        return submit(EnginePriority.STATE, session, deadline, () -> gameEngine.getGameState(session));
+    }
+
+    @Override
+    public CompletableFuture<Game> undoMoves(final Session session, final int count, final Duration deadline) {
+        return submit(EnginePriority.MOVE, session, deadline, () -> gameEngine.undoMoves(session, count));
+    }
+
+    @Override
+    public CompletableFuture<EndGame> getScore(final Session session, final Duration deadline) {
+        return submit(EnginePriority.SCORE, session, deadline, () -> gameEngine.getScore(session));
+    }
+
+    @Override
+    public void prepareSession(final Session session) {
+        gameEngine.prepareSession(session);
+    }
+
+    @Override
+    public void releaseSession(final Session session) {
+        gameEngine.releaseSession(session);
+    }
+
+    private <T> CompletableFuture<T> submit(final EnginePriority priority, final Session session, final Duration deadline, final Supplier<T> call) {
+        return submitAsync(priority, session, deadline, () -> CompletableFuture.completedFuture(call.get()));
+    }
+
+    private <T> CompletableFuture<T> submitAsync(final EnginePriority priority, final Session session, final Duration deadline,
+                                                 final Supplier<CompletableFuture<T>> call) {
+        final var result = new CompletableFuture<T>();
+        final BiConsumer<T, Throwable> complete = (value, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else {
+                result.complete(value);
+            }
+        };
+        final Future<?> task;
+        try {
+            task = scheduler.submit(priority, EngineWorkScheduler.userOf(session), session.getId(), () -> {
+                // Expired or cancelled while waiting for a worker
+                if (result.isDone()) {
+                    return;
+                }
+                try {
+                    final var execution = call.get();
+                    if (execution.isDone()) {
+                        execution.whenComplete(complete);
+                    } else {
+                        execution.whenCompleteAsync(complete, completions);
+                    }
+                } catch (Throwable error) {
+                    result.completeExceptionally(error);
+                }
+            });
+        } catch (RejectedExecutionException error) {
+            return CompletableFuture.failedFuture(new EngineUnavailableException("Game engine is busy", error));
+        }
+
+        final var timeout = deadlines.schedule(() -> completions.execute(() -> result.completeExceptionally(
+                new TimeoutException("Engine call exceeded its deadline of " + deadline.toMillis() + " ms"))),
+                deadline.toMillis(), TimeUnit.MILLISECONDS);
+        result.whenComplete((value, error) -> {
+            timeout.cancel(false);
+            if (error != null) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    @PreDestroy
+    public void close() {
+        deadlines.shutdownNow();
+        completions.shutdown();
+    }
+}
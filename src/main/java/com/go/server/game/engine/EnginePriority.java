@@ -0,0 +1,23 @@
+package com.go.server.game.engine;
+
+/**
+ * Priority classes of engine work. Workers pick classes by weight, so cheap interactive calls
+ * overtake expensive ones without starving them.
+ */
+public enum EnginePriority {
+    STATE(16),
+    MOVE(8),
+    BOT_MOVE(4),
+    SCORE(2),
+    ANALYSIS(1);
+
+    private final int weight;
+
+    EnginePriority(final int weight) {
+        this.weight = weight;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+}
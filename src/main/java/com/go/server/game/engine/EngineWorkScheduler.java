@@ -0,0 +1,253 @@
+package com.go.server.game.engine;
+
+import com.go.server.game.session.model.Player;
+import com.go.server.game.session.model.Session;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs engine work on a fixed set of workers in front of any {@link GameEngine}. Work is queued by
+ * {@link EnginePriority}; workers pick a class by smooth weighted round robin and, within a class,
+ * take the users in turn and then the sessions of each user, so neither one busy session nor a user
+ * with many sessions can hold up the others. Analysis work runs on a limited number of workers only.
+ * <p>
+ * The wait of bot moves for a worker is where a bot backlog builds up, so it drives the
+ * {@link BotStrengthPolicy}.
+ */
+@Component
+public class EngineWorkScheduler {
+    private final Logger logger = LoggerFactory.getLogger(EngineWorkScheduler.class);
+    private final Map<EnginePriority, ClassQueue> queues = new EnumMap<>(EnginePriority.class);
+    private final List<Thread> workers = new ArrayList<>();
+    private final BotStrengthPolicy strengthPolicy;
+    private final int queueCapacity;
+    private volatile boolean running = true;
+
+    public EngineWorkScheduler(final MeterRegistry meterRegistry,
+                               final BotStrengthPolicy strengthPolicy,
+                               @Value("${game.engine.async.threads:16}") final int threads,
+                               @Value("${game.engine.async.queue-capacity:256}") final int queueCapacity,
+                               @Value("${game.engine.async.analysis-threads:1}") final int analysisThreads) {
+        this.queueCapacity = queueCapacity;
+        this.strengthPolicy = strengthPolicy;
+        for (final var priority : EnginePriority.values()) {
+            final var tag = priority.name().toLowerCase();
+            final var queue = new ClassQueue(
+                    priority == EnginePriority.ANALYSIS ? analysisThreads : threads,
+                    Timer.builder("game.engine.queue.wait")
+                            .description("Time engine work waits for a worker")
+                            .tag("priority", tag)
+                            .publishPercentileHistogram()
+                            .register(meterRegistry),
+                    Counter.builder("game.engine.rejected")
+                            .description("Engine work rejected because the queue of its priority was full")
+                            .tag("priority", tag)
+                            .register(meterRegistry));
+            queues.put(priority, queue);
+            Gauge.builder("game.engine.queue.size", this, scheduler -> scheduler.getQueueSize(priority))
+                    .description("Engine work waiting for a worker")
+                    .tag("priority", tag)
+                    .register(meterRegistry);
+        }
+
+        for (int i = 1; i <= threads; i++) {
+            final var worker = new Thread(this::work, "game-engine-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * The user a session's engine work is charged to: the first human player, who created the game.
+     */
+    static String userOf(final Session session) {
+        return session.getPlayers().stream()
+                .filter(player -> !player.isBot())
+                .findFirst()
+                .map(Player::getId)
+                .map(UUID::toString)
+                .orElse(session.getId());
+    }
+
+    /**
+     * Queues the work behind the earlier work of its priority class. Cancelling the returned future
+     * interrupts the work if it already started.
+     *
+     * @throws RejectedExecutionException if the queue of the priority class is full
+     */
+    public Future<?> submit(final EnginePriority priority, final String userId, final String sessionId, final Runnable work) {
+        final var task = new FutureTask<Void>(work, null);
+        synchronized (this) {
+            if (!running) {
+                throw new RejectedExecutionException("Engine work scheduler is closed");
+            }
+            final var queue = queues.get(priority);
+            if (queue.size >= queueCapacity) {
+                queue.rejected.increment();
+                logger.warn("Engine work queue for priority {} is full", priority);
+                throw new RejectedExecutionException("Engine work queue for priority " + priority + " is full");
+            }
+            queue.add(userId, sessionId, new QueuedWork(priority, task, System.nanoTime()));
+            notify();
+        }
+        return task;
+    }
+
+    public synchronized int getQueueSize(final EnginePriority priority) {
+        return queues.get(priority).size;
+    }
+
+    @PreDestroy
+    public void close() {
+        synchronized (this) {
+            running = false;
+            queues.values().forEach(queue -> queue.drain().forEach(work -> work.task().cancel(false)));
+        }
+        workers.forEach(Thread::interrupt);
+    }
+
+    private void work() {
+        while (running) {
+            final QueuedWork work;
+            try {
+                work = next();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            work.task().run();
+            // Clear an interrupt from a cancellation that raced with the end of the work
+            Thread.interrupted();
+            finished(work.priority());
+        }
+    }
+
+    private synchronized void finished(final EnginePriority priority) {
+        final var queue = queues.get(priority);
+        queue.running--;
+        // Work held back by the worker limit of its class can go now
+        if (queue.size > 0) {
+            notify();
+        }
+    }
+
+    private synchronized QueuedWork next() throws InterruptedException {
+        while (true) {
+            final var priority = pickPriority();
+            if (priority.isPresent()) {
+                final var queue = queues.get(priority.get());
+                final var work = queue.poll();
+                queue.running++;
+                final var wait = Duration.ofNanos(System.nanoTime() - work.enqueued());
+                queue.waitTimer.record(wait);
+                if (priority.get() == EnginePriority.BOT_MOVE) {
+                    strengthPolicy.recordQueueWait(wait);
+                }
+                return work;
+            }
+            wait();
+        }
+    }
+
+    // Smooth weighted round robin over the classes with queued work and a worker to spare
+    private Optional<EnginePriority> pickPriority() {
+        EnginePriority picked = null;
+        int totalWeight = 0;
+        for (final var entry : queues.entrySet()) {
+            final var queue = entry.getValue();
+            if (queue.size == 0 || queue.running >= queue.maxRunning) {
+                continue;
+            }
+            final var weight = entry.getKey().getWeight();
+            queue.currentWeight += weight;
+            totalWeight += weight;
+            if (picked == null || queue.currentWeight > queues.get(picked).currentWeight) {
+                picked = entry.getKey();
+            }
+        }
+
+        if (picked != null) {
+            queues.get(picked).currentWeight -= totalWeight;
+        }
+        return Optional.ofNullable(picked);
+    }
+
+    /**
+     * The work of one priority class, kept per user and session and taken from the users in turn,
+     * each taking their sessions in turn.
+     */
+    private static final class ClassQueue {
+        private final Map<String, Map<String, Deque<QueuedWork>>> users = new LinkedHashMap<>();
+        private final int maxRunning;
+        private final Timer waitTimer;
+        private final Counter rejected;
+        private int size = 0;
+        private int running = 0;
+        private int currentWeight = 0;
+
+        private ClassQueue(final int maxRunning, final Timer waitTimer, final Counter rejected) {
+            this.maxRunning = maxRunning;
+            this.waitTimer = waitTimer;
+            this.rejected = rejected;
+        }
+
+        private void add(final String userId, final String sessionId, final QueuedWork work) {
+            users.computeIfAbsent(userId, id -> new LinkedHashMap<>())
+                    .computeIfAbsent(sessionId, id -> new ArrayDeque<>())
+                    .add(work);
+            size++;
+        }
+
+        private QueuedWork poll() {
+            final var user = takeFirst(users);
+            final var session = takeFirst(user.getValue());
+            final var work = session.getValue().poll();
+            // Back to the end of the line for the rest of their work
+            if (!session.getValue().isEmpty()) {
+                user.getValue().put(session.getKey(), session.getValue());
+            }
+            if (!user.getValue().isEmpty()) {
+                users.put(user.getKey(), user.getValue());
+            }
+            size--;
+            if (size == 0) {
+                currentWeight = 0;
+            }
+            return work;
+        }
+
+        private List<QueuedWork> drain() {
+            final var drained = users.values().stream()
+                    .flatMap(sessions -> sessions.values().stream())
+                    .flatMap(Collection::stream)
+                    .toList();
+            users.clear();
+            size = 0;
+            return drained;
+        }
+
+        private static <V> Map.Entry<String, V> takeFirst(final Map<String, V> map) {
+            final var iterator = map.entrySet().iterator();
+            final var first = iterator.next();
+            iterator.remove();
+            return first;
+        }
+    }
+
+    private record QueuedWork(EnginePriority priority, FutureTask<Void> task, long enqueued) {
+    }
+}
@@ -6,10 +6,31 @@ import com.go.server.game.session.model.Session;
 import com.go.server.game.model.DeviceMove;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface GameEngine {
     Game processMove(Session session, DeviceMove move);
     Optional<DeviceMove> generateMove(Session session);
+
+    /**
+     * Generates a move without holding the calling thread while the engine thinks. Engines without
+     * non-blocking I/O generate it right away.
+     */
+    default CompletableFuture<Optional<DeviceMove>> generateMoveAsync(Session session) {
+        return CompletableFuture.completedFuture(generateMove(session));
+    }
     Game getGameState(Session session);
+
+    /**
+     * Takes back the last moves of the session.
+     */
+    Game undoMoves(Session session, int count);
     EndGame getScore(Session session);
+    /**
+     * Gets engine resources ready for a new session. Must not block.
+     */
+    default void prepareSession(Session session) {
+    }
+
+    void releaseSession(Session session);
 }
@@ -0,0 +1,45 @@
+package com.go.server.game.engine;
+
+import com.go.server.game.model.EndGame;
+import com.go.server.game.model.GameRecord;
+import com.go.server.game.model.Location;
+import com.go.server.game.model.Score;
+import com.go.server.game.model.ScoringRules;
+import com.go.server.game.model.StoneState;
+import com.go.server.game.session.model.Colors;
+import com.go.server.game.session.model.Player;
+import com.go.server.game.session.model.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Scores finished games in-process under the configured rules and komi, given the stones the engine
+ * analysed to be dead.
+ */
+@Component
+public class GameScorer {
+    private final ScoringRules rules;
+    private final double komi;
+
+    public GameScorer(@Value("${game.scoring.rules:TERRITORY}") final ScoringRules rules,
+                      @Value("${game.scoring.komi:5.5}") final double komi) {
+        this.rules = rules;
+        this.komi = komi;
+    }
+
+    public double getKomi() {
+        return komi;
+    }
+
+    public EndGame score(final Session session, final GameRecord record, final Collection<Location> deadStones) {
+        final var score = Score.count(record, deadStones, rules, komi);
+        final var winner = score.winner();
+        final List<Player> winners = session.getPlayers().stream()
+                .filter(player -> winner != StoneState.Empty && player.getColor() == (winner == StoneState.Black ? Colors.BLACK : Colors.WHITE))
+                .toList();
+        return new EndGame(score.margin(), winners);
+    }
+}
@@ -0,0 +1,50 @@
+package com.go.server.game.engine;
+
+import com.go.server.game.engine.gtp.GtpCoordinates;
+import com.go.server.game.model.Board;
+import com.go.server.game.model.Game;
+import com.go.server.game.session.model.Colors;
+import com.go.server.game.session.model.Player;
+import com.go.server.game.session.model.Session;
+
+import java.util.List;
+
+public final class GameStates {
+    private GameStates() {
+        // Prevent instantiation
+    }
+
+    public static Colors nextColor(final List<String> moves) {
+        return (moves.size() % 2 == 0) ? Colors.BLACK : Colors.WHITE;
+    }
+
+    public static Colors colorOf(final int moveIndex) {
+        return (moveIndex % 2 == 0) ? Colors.BLACK : Colors.WHITE;
+    }
+
+    public static boolean isGameEnded(final List<String> moves) {
+        return moves.size() >= 2
+                && GtpCoordinates.isPass(moves.get(moves.size() - 1))
+                && GtpCoordinates.isPass(moves.get(moves.size() - 2));
+    }
+
+    static Game build(final Session session, final Board board) {
+        final var activeColor = nextColor(session.getMoves());
+        final var passiveColor = activeColor == Colors.BLACK ? Colors.WHITE : Colors.BLACK;
+
+        return new Game(
+                session.getBoardSize(),
+                findPlayer(session, activeColor),
+                findPlayer(session, passiveColor),
+                board,
+                isGameEnded(session.getMoves())
+        );
+    }
+
+    private static Player findPlayer(final Session session, final Colors color) {
+        return session.getPlayers().stream()
+                .filter(p -> p.getColor() == color)
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("Player not found for color: " + color));
+    }
+}
@@ -0,0 +1,201 @@
+package com.go.server.game.engine;
+
+import com.go.server.game.session.model.BotDifficulty;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the moves GnuGo generated per position, so bots reaching a known position,
+ * e.g. a common opening, answer without a search. Entries are keyed by board size,
+ * position hash including the side to move, and difficulty.
+ */
+@Component
+public class GenmoveCache {
+    private static final int FILE_VERSION = 1;
+
+    private final Logger logger = LoggerFactory.getLogger(GenmoveCache.class);
+    private final Map<BotDifficulty, GenmoveCachePolicy> policies;
+    private final int openingMoves;
+    private final Optional<Path> file;
+    private final LinkedHashMap<Key, Entry> entries;
+    private final Map<BotDifficulty, Counter> hits = new EnumMap<>(BotDifficulty.class);
+    private final Map<BotDifficulty, Counter> misses = new EnumMap<>(BotDifficulty.class);
+    private final Counter evictions;
+    private final Counter savedEngineTime;
+    private boolean dirty = false;
+
+    @Autowired
+    public GenmoveCache(final MeterRegistry meterRegistry,
+                        @Value("${game.bot.cache.max-entries:10000}") final int maxEntries,
+                        @Value("${game.bot.cache.policy.easy:ALWAYS}") final GenmoveCachePolicy easyPolicy,
+                        @Value("${game.bot.cache.policy.medium:ALWAYS}") final GenmoveCachePolicy mediumPolicy,
+                        @Value("${game.bot.cache.policy.hard:OPENING}") final GenmoveCachePolicy hardPolicy,
+                        @Value("${game.bot.cache.opening-moves:12}") final int openingMoves,
+                        @Value("${game.bot.cache.file:}") final String file) {
+        this(meterRegistry, maxEntries, Map.of(
+                BotDifficulty.EASY, easyPolicy,
+                BotDifficulty.MEDIUM, mediumPolicy,
+                BotDifficulty.HARD, hardPolicy), openingMoves, Optional.of(file).filter(path -> !path.isBlank()).map(Path::of));
+    }
+
+    public GenmoveCache(final MeterRegistry meterRegistry,
+                        final int maxEntries,
+                        final Map<BotDifficulty, GenmoveCachePolicy> policies,
+                        final int openingMoves,
+                        final Optional<Path> file) {
+        this.policies = policies;
+        this.openingMoves = openingMoves;
+        this.file = file;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Entry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        for (final var difficulty : BotDifficulty.values()) {
+            final var tag = difficulty.name().toLowerCase();
+            hits.put(difficulty, Counter.builder("game.bot.cache.hits").tag("difficulty", tag).register(meterRegistry));
+            misses.put(difficulty, Counter.builder("game.bot.cache.misses").tag("difficulty", tag).register(meterRegistry));
+        }
+        this.evictions = Counter.builder("game.bot.cache.evictions").register(meterRegistry);
+        this.savedEngineTime = Counter.builder("game.bot.cache.saved.engine.time")
+                .description("Engine time the cached moves took to generate")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("game.bot.cache.size", this, GenmoveCache::size).register(meterRegistry);
+    }
+
+    /**
+     * The cached move for the position, as a GTP vertex, if the policy of the difficulty allows a hit.
+     */
+    public Optional<String> lookup(final int boardSize, final long positionHash, final int moveNumber, final BotDifficulty difficulty) {
+        if (!isCacheable(moveNumber, difficulty)) {
+            return Optional.empty();
+        }
+
+        final Entry entry;
+        synchronized (this) {
+            entry = entries.get(new Key(boardSize, positionHash, difficulty));
+        }
+
+        if (entry == null) {
+            misses.get(difficulty).increment();
+            return Optional.empty();
+        }
+
+        hits.get(difficulty).increment();
+        savedEngineTime.increment(entry.engineNanos() / (double) TimeUnit.SECONDS.toNanos(1));
+        return Optional.of(entry.vertex());
+    }
+
+    public void store(final int boardSize, final long positionHash, final int moveNumber, final BotDifficulty difficulty,
+                      final String vertex, final Duration engineTime) {
+        if (!isCacheable(moveNumber, difficulty)) {
+            return;
+        }
+
+        synchronized (this) {
+            entries.put(new Key(boardSize, positionHash, difficulty), new Entry(vertex, engineTime.toNanos()));
+            dirty = true;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public boolean isCacheable(final int moveNumber, final BotDifficulty difficulty) {
+        return policies.getOrDefault(difficulty, GenmoveCachePolicy.ALWAYS).allows(moveNumber, openingMoves);
+    }
+
+    @PostConstruct
+    public void load() {
+        file.filter(Files::isRegularFile).ifPresent(path -> {
+            try (final var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                if (input.readInt() != FILE_VERSION) {
+                    logger.warn("Ignoring genmove cache {} of an unknown version", path);
+                    return;
+                }
+
+                final int count = input.readInt();
+                synchronized (this) {
+                    for (int i = 0; i < count; i++) {
+                        final var key = new Key(input.readInt(), input.readLong(), BotDifficulty.valueOf(input.readUTF()));
+                        entries.put(key, new Entry(input.readUTF(), input.readLong()));
+                    }
+                }
+                logger.info("Loaded {} cached bot moves from {}", count, path);
+            } catch (IOException | IllegalArgumentException error) {
+                logger.warn("Could not load genmove cache from {}: {}", path, error.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${game.bot.cache.save-interval:300000}")
+    public void save() {
+        if (file.isEmpty()) {
+            return;
+        }
+
+        final List<Map.Entry<Key, Entry>> snapshot;
+        synchronized (this) {
+            if (!dirty) {
+                return;
+            }
+            snapshot = entries.entrySet().stream().map(cached -> Map.entry(cached.getKey(), cached.getValue())).toList();
+            dirty = false;
+        }
+
+        final var path = file.get();
+        try {
+            final var temp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+            try (final var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                output.writeInt(FILE_VERSION);
+                output.writeInt(snapshot.size());
+                for (final var cached : snapshot) {
+                    output.writeInt(cached.getKey().boardSize());
+                    output.writeLong(cached.getKey().positionHash());
+                    output.writeUTF(cached.getKey().difficulty().name());
+                    output.writeUTF(cached.getValue().vertex());
+                    output.writeLong(cached.getValue().engineNanos());
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Saved {} cached bot moves to {}", snapshot.size(), path);
+        } catch (IOException error) {
+            logger.warn("Could not save genmove cache to {}: {}", path, error.getMessage());
+            synchronized (this) {
+                dirty = true;
+            }
+        }
+    }
+
+    private record Key(int boardSize, long positionHash, BotDifficulty difficulty) {
+    }
+
+    private record Entry(String vertex, long engineNanos) {
+    }
+}
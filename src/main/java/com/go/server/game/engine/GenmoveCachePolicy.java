@@ -0,0 +1,15 @@
+package com.go.server.game.engine;
+
+public enum GenmoveCachePolicy {
+    ALWAYS,
+    OPENING,
+    NEVER;
+
+    public boolean allows(final int moveNumber, final int openingMoves) {
+        return switch (this) {
+            case ALWAYS -> true;
+            case OPENING -> moveNumber < openingMoves;
+            case NEVER -> false;
+        };
+    }
+}
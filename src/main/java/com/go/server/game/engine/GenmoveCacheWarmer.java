@@ -0,0 +1,98 @@
+package com.go.server.game.engine;
+
+import com.go.server.game.engine.gtp.GtpCoordinates;
+import com.go.server.game.session.model.BotDifficulty;
+import com.go.server.game.session.model.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills the genmove cache with the answers to the usual first moves once the application started,
+ * so the first bot moves of new games do not wait for a search.
+ */
+@Component
+@ConditionalOnProperty(name = "game.bot.cache.prewarm.enabled", havingValue = "true", matchIfMissing = true)
+public class GenmoveCacheWarmer {
+    private static final int MIN_SIZE = 7;
+
+    private final Logger logger = LoggerFactory.getLogger(GenmoveCacheWarmer.class);
+    private final GnuGoGameEngine gnuGoGameEngine;
+    private final GenmoveCache genmoveCache;
+    private final int[] sizes;
+
+    public GenmoveCacheWarmer(final GnuGoGameEngine gnuGoGameEngine,
+                              final GenmoveCache genmoveCache,
+                              @Value("${game.bot.cache.prewarm.sizes:9,13,19}") final int[] sizes) {
+        this.gnuGoGameEngine = gnuGoGameEngine;
+        this.genmoveCache = genmoveCache;
+        this.sizes = sizes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        final var warmer = new Thread(this::prewarm, "genmove-cache-warmer");
+        warmer.setDaemon(true);
+        warmer.start();
+    }
+
+    void prewarm() {
+        int generated = 0;
+        for (final int size : sizes) {
+            if (size < MIN_SIZE) {
+                continue;
+            }
+            for (final var difficulty : BotDifficulty.values()) {
+                for (final var opening : openings(size)) {
+                    if (!genmoveCache.isCacheable(opening.size(), difficulty)) {
+                        continue;
+                    }
+                    final var session = new Session(Instant.now(), difficulty, size);
+                    opening.forEach(session::addMove);
+                    try {
+                        if (gnuGoGameEngine.generateMove(session).isEmpty()) {
+                            logger.warn("GnuGo did not generate a move, stopping to pre-warm the genmove cache");
+                            return;
+                        }
+                        generated++;
+                    } finally {
+                        gnuGoGameEngine.releaseSession(session);
+                    }
+                }
+            }
+        }
+        logger.info("Pre-warmed genmove cache with {} openings, {} entries cached", generated, genmoveCache.size());
+    }
+
+    /**
+     * The empty board and a black stone on every star point.
+     */
+    static List<List<String>> openings(final int size) {
+        final int edge = size >= 13 ? 3 : 2;
+        final int far = size - 1 - edge;
+        final int center = size / 2;
+
+        final var points = new ArrayList<int[]>(List.of(
+                new int[]{edge, edge}, new int[]{far, edge}, new int[]{edge, far}, new int[]{far, far}));
+        if (size % 2 == 1) {
+            points.add(new int[]{center, center});
+        }
+        if (size >= 19) {
+            points.addAll(List.of(
+                    new int[]{center, edge}, new int[]{edge, center}, new int[]{far, center}, new int[]{center, far}));
+        }
+
+        final var openings = new ArrayList<List<String>>();
+        openings.add(List.of());
+        points.forEach(point -> openings.add(List.of(GtpCoordinates.toGtp(point[0], point[1], size))));
+        return openings;
+    }
+}
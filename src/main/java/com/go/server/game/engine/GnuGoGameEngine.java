@@ -1,20 +1,30 @@
 package com.go.server.game.engine;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.go.server.game.engine.gtp.GtpBackendRouter;
+import com.go.server.game.engine.gtp.GtpBoardBinding;
+import com.go.server.game.engine.gtp.GtpBoardBindings;
+import com.go.server.game.engine.gtp.GtpConnection;
+import com.go.server.game.engine.gtp.GtpCoordinates;
+import com.go.server.game.engine.gtp.GtpResponse;
 import com.go.server.game.model.*;
 import com.go.server.game.session.model.BotDifficulty;
-import com.go.server.game.session.model.Player;
 import com.go.server.game.session.model.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import jakarta.annotation.PreDestroy;
 import org.springframework.stereotype.Service;
 
-import java.io.*;
-import java.net.Socket;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 import com.go.server.game.session.exception.InvalidMoveException;
 
 @Service
@@ -24,58 +34,78 @@ public class GnuGoGameEngine implements GameEngine {
     private static final String GTP_CLEAR_BOARD = "clear_board";
     private static final String GTP_KOMI = "komi ";
     private static final String GTP_PLAY = "play ";
-    private static final String GTP_GENMOVE = "genmove ";
+    private static final String GTP_REG_GENMOVE = "reg_genmove ";
     private static final String GTP_LIST_STONES_BLACK = "list_stones black";
     private static final String GTP_LIST_STONES_WHITE = "list_stones white";
     private static final String GTP_LEVEL = "level ";
-    private static final String GTP_FINAL_SCORE = "final_score";
-    private static final String GTP_RESPONSE_PREFIX = "=";
+    private static final String GTP_TIME_SETTINGS = "time_settings ";
+    private static final String GTP_TIME_LEFT = "time_left ";
+    private static final String GTP_FINAL_STATUS_LIST_DEAD = "final_status_list dead";
+    private static final String GTP_TOP_MOVES = "top_moves_";
+    private static final String GTP_UNDO = "undo";
 
     private static final String COLOR_BLACK = "black";
     private static final String COLOR_WHITE = "white";
-    private static final String MOVE_PASS = "PASS";
-
-    private static final String SCORE_BLACK_PREFIX = "B+";
-    private static final String SCORE_WHITE_PREFIX = "W+";
-
-    private static final String KOMI_VALUE = "5.5";
 
     private static final int LEVEL_EASY = 1;
     private static final int LEVEL_MEDIUM = 10;
     private static final int LEVEL_HARD = 20;
     private static final int DEFAULT_LEVEL = 10;
 
+    private static final String SETUP_POSITION = "position";
+    private static final String SETUP_REPLAY = "replay";
+    private static final String SETUP_INCREMENTAL = "incremental";
+
     private final Logger logger = LoggerFactory.getLogger(GnuGoGameEngine.class);
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    @Value("${gnugo.host:localhost}")
-    private String gnuGoHost;
-
-    @Value("${gnugo.port:8001}")
-    private int gnuGoPort;
+    private final GtpBackendRouter backendRouter;
+    private final GtpBoardBindings boardBindings;
+    private final SessionBoardCache boardCache;
+    private final GenmoveCache genmoveCache;
+    private final GnuGoMetrics metrics;
+    private final BotStrengthPolicy strengthPolicy;
+    private final Ponderer ponderer;
+    private final WarmBoardPool warmBoards;
+    private final GameScorer scorer;
+    private final boolean sessionAffinity;
+    private final boolean positionSetup;
+    // Retries borrow a connection, which may wait for the pool
+    private final ExecutorService retries = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("gnugo-retry-", 1).factory());
+
+    public GnuGoGameEngine(final GtpBackendRouter backendRouter,
+                           final GtpBoardBindings boardBindings,
+                           final SessionBoardCache boardCache,
+                           final GenmoveCache genmoveCache,
+                           final GnuGoMetrics metrics,
+                           final BotStrengthPolicy strengthPolicy,
+                           final Ponderer ponderer,
+                           final WarmBoardPool warmBoards,
+                           final GameScorer scorer,
+                           @Value("${gnugo.session-affinity.enabled:true}") final boolean sessionAffinity,
+                           @Value("${gnugo.position-setup.enabled:true}") final boolean positionSetup) {
+        this.backendRouter = backendRouter;
+        this.boardBindings = boardBindings;
+        this.boardCache = boardCache;
+        this.genmoveCache = genmoveCache;
+        this.metrics = metrics;
+        this.strengthPolicy = strengthPolicy;
+        this.ponderer = ponderer;
+        this.warmBoards = warmBoards;
+        this.scorer = scorer;
+        this.sessionAffinity = sessionAffinity;
+        this.positionSetup = positionSetup;
+    }
 
     @Override
     public Game processMove(Session session, DeviceMove move) {
-        try (Socket socket = new Socket(gnuGoHost, gnuGoPort);
-             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));
-             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
-
-            setupGame(writer, reader, session);
-
-            // Play the new move
-            String color = determineNextColor(session.getMoves());
-            String moveCoord = move.getType() == DeviceMove.MoveType.PASS ? MOVE_PASS : toGtpCoord(move.getX(), move.getY(), session.getBoardSize());
-            
-            String response = sendGtp(writer, reader, GTP_PLAY + color + " " + moveCoord);
-            if (!response.startsWith(GTP_RESPONSE_PREFIX)) {
-                throw new InvalidMoveException("Illegal move: " + response);
-            }
-
-            // Move legitimate, update session
-            session.addMove(moveCoord);
-
-            return buildGame(writer, reader, session, color.equalsIgnoreCase(COLOR_BLACK) ? COLOR_WHITE : COLOR_BLACK);
-
+        ponderer.yieldTo(session.getId());
+        try {
+            Game game = metrics.recordCall(GnuGoMetrics.OPERATION_PROCESS_MOVE, session,
+                    () -> withSessionBoard(session, board -> processMove(board, session, move)));
+            movePlayed(session, game);
+            return game;
         } catch (InvalidMoveException e) {
             throw e;
         } catch (Exception e) {
@@ -84,232 +114,495 @@ public class GnuGoGameEngine implements GameEngine {
         }
     }
 
+    /**
+     * Starts pondering once a bot moved and the human is to reply. Engines applying moves
+     * themselves call this for games with a bot.
+     */
+    public void movePlayed(Session session, Game game) {
+        if (ponderer.isEnabled() && game.getPassivePlayer().isBot() && !game.getActivePlayer().isBot() && !game.isGameEnded()) {
+            ponder(session);
+        }
+    }
+
+    private Game processMove(SessionBoard board, Session session, DeviceMove move) throws IOException {
+        // Play the new move and fetch the resulting stones in the same batch
+        String color = determineNextColor(session.getMoves());
+        String moveCoord = GtpCoordinates.toGtp(move, session.getBoardSize());
+
+        List<GtpResponse> responses = board.execute(GTP_PLAY + color + " " + moveCoord, GTP_LIST_STONES_BLACK, GTP_LIST_STONES_WHITE);
+        GtpResponse play = responses.get(0);
+        if (!play.isSuccess()) {
+            throw new InvalidMoveException("Illegal move: " + play.getBody());
+        }
+
+        // Move legitimate, update session
+        session.addMove(moveCoord);
+
+        return buildGame(session, responses.get(1), responses.get(2));
+    }
+
     @Override
     public Optional<DeviceMove> generateMove(Session session) {
-        try (Socket socket = new Socket(gnuGoHost, gnuGoPort);
-             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));
-             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
-
-            setupGame(writer, reader, session);
+        return generateMoveAsync(session).join();
+    }
 
-            String color = determineNextColor(session.getMoves());
-            
-            // Set Difficulty
-            sendGtp(writer, reader, GTP_LEVEL + mapDifficultyToLevel(session.getDifficulty().orElse(null)));
+    /**
+     * Only looking up the position and acquiring the board happen on the calling thread; the
+     * engine's answer completes the future on a GTP I/O thread. Failures complete it empty.
+     */
+    @Override
+    public CompletableFuture<Optional<DeviceMove>> generateMoveAsync(Session session) {
+        try {
+            int size = session.getBoardSize();
+            int moveNumber = session.getMoves().size();
+            BotDifficulty difficulty = session.getDifficulty().orElse(BotDifficulty.MEDIUM);
+            GameRecord record = boardCache.replay(session);
+
+            Optional<DeviceMove> pondered = ponderer.take(session.getId(), moveNumber, record.getHash())
+                    .flatMap(vertex -> GtpCoordinates.toDeviceMove(vertex, size))
+                    .filter(move -> isPlayable(record, move));
+            if (pondered.isPresent()) {
+                logger.debug("Using pondered bot move for session {}", session.getId());
+                return CompletableFuture.completedFuture(pondered);
+            }
 
-            String response = sendGtp(writer, reader, GTP_GENMOVE + color);
-            Optional<DeviceMove> move = parseGnuGoResponse(response, session.getBoardSize());
-            
-            return move;
+            Optional<DeviceMove> cached = genmoveCache.lookup(size, record.getHash(), moveNumber, difficulty)
+                    .flatMap(vertex -> GtpCoordinates.toDeviceMove(vertex, size))
+                    .filter(move -> isPlayable(record, move));
+            if (cached.isPresent()) {
+                logger.debug("Using cached bot move for session {}", session.getId());
+                return CompletableFuture.completedFuture(cached);
+            }
 
+            int level = mapDifficultyToLevel(difficulty);
+            int effectiveLevel = strengthPolicy.effectiveLevel(difficulty, level);
+            String color = determineNextColor(session.getMoves());
+            long started = System.nanoTime();
+
+            // Set difficulty and generate without playing, so the board stays in sync with the session moves
+            List<String> commands = new ArrayList<>();
+            commands.add(GTP_LEVEL + effectiveLevel);
+            commands.addAll(timeCommands(color));
+            commands.add(GTP_REG_GENMOVE + color);
+
+            return metrics.recordCallAsync(GnuGoMetrics.OPERATION_GENERATE_MOVE, session, () -> withSessionBoardAsync(session, board ->
+                            board.executeAsync(commands.toArray(String[]::new))
+                                    .thenApply(responses -> parseGnuGoResponse(responses.get(responses.size() - 1), size))))
+                    .thenApply(generated -> {
+                        // A move generated at a lowered level does not stand for the requested difficulty
+                        if (effectiveLevel == level) {
+                            Duration engineTime = Duration.ofNanos(System.nanoTime() - started);
+                            generated.ifPresent(move -> genmoveCache.store(size, record.getHash(), moveNumber, difficulty, GtpCoordinates.toGtp(move, size), engineTime));
+                        }
+                        return generated;
+                    })
+                    .exceptionally(error -> {
+                        logger.error("GnuGo GenMove failed", error);
+                        return Optional.empty();
+                    });
         } catch (Exception e) {
             logger.error("GnuGo GenMove failed", e);
-            return Optional.empty();
+            return CompletableFuture.completedFuture(Optional.empty());
         }
     }
 
-    @Override
-    public Game getGameState(Session session) {
-        try (Socket socket = new Socket(gnuGoHost, gnuGoPort);
-             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));
-             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+    /**
+     * Generates the bot replies to the best human moves on a connection of its own, so the bound
+     * board of the session stays untouched. Every candidate is played, answered and taken back in
+     * one batch; pondering stops between candidates once a real call needs the engine.
+     * Pondered replies stand for the requested difficulty, so nothing is pondered while the
+     * strength policy lowers bot moves and the backends are busy anyway.
+     */
+    private void ponder(Session session) {
+        BotDifficulty difficulty = session.getDifficulty().orElse(BotDifficulty.MEDIUM);
+        int level = mapDifficultyToLevel(difficulty);
+        if (strengthPolicy.isDowngrading(level)) {
+            return;
+        }
+
+        Session position = snapshot(session);
+        GameRecord record = boardCache.replay(position);
+        int size = position.getBoardSize();
+        String human = determineNextColor(position.getMoves());
+        String bot = human.equals(COLOR_BLACK) ? COLOR_WHITE : COLOR_BLACK;
+
+        ponderer.ponder(EngineWorkScheduler.userOf(position), position.getId(), position.getMoves().size() + 1, replies -> {
+            if (strengthPolicy.isDowngrading(level)) {
+                return;
+            }
+            withConnection(connection -> {
+                List<GtpResponse> responses = sendPonderBatch(connection, position,
+                        setupCommands(position, setupPosition(position)), List.of(GTP_LEVEL + level, GTP_TOP_MOVES + human));
+                if (!responses.stream().allMatch(GtpResponse::isSuccess)) {
+                    return null;
+                }
+
+                for (String candidate : parseTopMoves(responses.get(responses.size() - 1))) {
+                    Optional<DeviceMove> move = GtpCoordinates.toDeviceMove(candidate, size).filter(m -> !m.isPass());
+                    if (replies.isStopped() || strengthPolicy.isDowngrading(level)) {
+                        break;
+                    }
+                    if (move.isEmpty() || !record.check(move.get().getX(), move.get().getY()).isLegal()) {
+                        continue;
+                    }
+
+                    GameRecord next = record.copy();
+                    next.play(move.get().getX(), move.get().getY());
+
+                    // A rejected candidate leaves the board as it was, so there is nothing to take back
+                    long started = System.nanoTime();
+                    if (!sendPonderBatch(connection, position, List.of(), List.of(GTP_PLAY + human + " " + candidate)).get(0).isSuccess()) {
+                        continue;
+                    }
+
+                    List<String> commands = new ArrayList<>(timeCommands(bot));
+                    commands.add(GTP_REG_GENMOVE + bot);
+                    commands.add(GTP_UNDO);
+                    List<GtpResponse> reply = sendPonderBatch(connection, position, List.of(), commands);
+
+                    // Without the undo the board no longer holds the position the next candidates are played on
+                    if (!reply.get(reply.size() - 1).isSuccess()) {
+                        break;
+                    }
+                    GtpResponse generated = reply.get(reply.size() - 2);
+                    if (generated.isSuccess()) {
+                        replies.add(next.getHash(), generated.getBody(), Duration.ofNanos(System.nanoTime() - started));
+                    }
+                }
+                return null;
+            });
+        });
+    }
+
+    private List<String> parseTopMoves(GtpResponse response) {
+        if (!response.isSuccess() || response.isEmpty()) return List.of();
+        // Moves alternate with their values, best move first
+        String[] tokens = response.getBody().split("\\s+");
+        List<String> moves = new ArrayList<>();
+        for (int i = 0; i < tokens.length && moves.size() < ponderer.getCandidates(); i += 2) {
+            moves.add(tokens[i].toUpperCase());
+        }
+        return moves;
+    }
+
+    // Pondering runs after the call returned, while the caller may already change the session
+    private Session snapshot(Session session) {
+        Session snapshot = new Session(session.getId(), Instant.now(), session.getPlayers());
+        snapshot.setBoardSize(session.getBoardSize());
+        session.getDifficulty().ifPresent(snapshot::setDifficulty);
+        session.getMoves().forEach(snapshot::addMove);
+        return snapshot;
+    }
+
+    /**
+     * Byo-yomi of one stone with the configured move time, so GnuGo fits its search into it.
+     */
+    private List<String> timeCommands(String color) {
+        long seconds = (strengthPolicy.getMoveTime().toMillis() + 999) / 1000;
+        if (seconds == 0) {
+            return List.of();
+        }
+        return List.of(GTP_TIME_SETTINGS + "0 " + seconds + " 1", GTP_TIME_LEFT + color + " " + seconds + " 1");
+    }
 
-            setupGame(writer, reader, session);
-            String nextColor = determineNextColor(session.getMoves());
-            return buildGame(writer, reader, session, nextColor);
+    // The position hash does not cover the ko point, so a cached move may be illegal now
+    private boolean isPlayable(GameRecord record, DeviceMove move) {
+        return move.isPass() || record.check(move.getX(), move.getY()).isLegal();
+    }
 
+    @Override
+    public Game getGameState(Session session) {
+        try {
+            return metrics.recordCall(GnuGoMetrics.OPERATION_GAME_STATE, session, () -> withSessionBoard(session, board -> {
+                List<GtpResponse> responses = board.execute(GTP_LIST_STONES_BLACK, GTP_LIST_STONES_WHITE);
+                return buildGame(session, responses.get(0), responses.get(1));
+            }));
         } catch (Exception e) {
             logger.error("GnuGo getGameState failed", e);
             throw new RuntimeException("Game Engine Error", e);
         }
     }
 
-    private void setupGame(BufferedWriter writer, BufferedReader reader, Session session) throws IOException {
-        int size = session.getBoardSize();
-        logger.info("Setting up GnuGo board. size: {}", size);
-        sendGtp(writer, reader, GTP_BOARDSIZE + size);
-        sendGtp(writer, reader, GTP_CLEAR_BOARD);
-        sendGtp(writer, reader, GTP_KOMI + KOMI_VALUE);
+    /**
+     * Takes the moves back on the bound board with GTP undo, in the same batch as the stones query.
+     * Without a bound board the shorter game is set up from scratch.
+     */
+    @Override
+    public Game undoMoves(Session session, int count) {
+        try {
+            return metrics.recordCall(GnuGoMetrics.OPERATION_UNDO, session, () -> {
+                session.removeLastMoves(count);
+                movesUndone(session, count);
+                return withSessionBoard(session, board -> {
+                    List<GtpResponse> responses = board.execute(GTP_LIST_STONES_BLACK, GTP_LIST_STONES_WHITE);
+                    return buildGame(session, responses.get(0), responses.get(1));
+                });
+            });
+        } catch (Exception e) {
+            logger.error("GnuGo undo failed", e);
+            throw new RuntimeException("Game Engine Error", e);
+        }
+    }
+
+    /**
+     * Lets the bound board take back moves the session dropped. Engines taking moves back
+     * themselves call this, so the board does not have to be set up again.
+     */
+    public void movesUndone(Session session, int count) {
+        ponderer.discard(session.getId());
+        if (sessionAffinity) {
+            boardBindings.undo(session.getId(), count);
+        }
+    }
+
+    /**
+     * Binds a warm engine board to a new session, so its first engine call needs no board setup.
+     */
+    @Override
+    public void prepareSession(Session session) {
+        if (sessionAffinity && session.getMoves().isEmpty()) {
+            warmBoards.take(session.getBoardSize())
+                    .ifPresent(connection -> boardBindings.bind(session.getId(), connection, session.getBoardSize()));
+        }
+    }
+
+    @Override
+    public void releaseSession(Session session) {
+        boardBindings.unbind(session.getId());
+        boardCache.evict(session.getId());
+        ponderer.discard(session.getId());
+    }
+
+    private <T> T withSessionBoard(Session session, GtpCall<T> call) throws IOException {
+        if (!sessionAffinity) {
+            return withConnection(connection -> {
+                List<String> setup = setupCommands(session, setupPosition(session));
+                return call.apply(new SessionBoard(connection, session, setup, false));
+            });
+        }
+
+        long started = System.nanoTime();
+        GtpBoardBinding binding = boardBindings.checkout(session.getId());
+        metrics.recordAcquire(true, Duration.ofNanos(System.nanoTime() - started));
+        boolean bound = binding.isSynced();
+        try {
+            return withBinding(binding, session, call);
+        } catch (IOException e) {
+            if (!bound) {
+                throw e;
+            }
+            // The bound connection was lost, set the game up again on another one
+            logger.warn("Bound GTP board of session {} failed, replaying on a fresh connection: {}", session.getId(), e.getMessage());
+            return withBinding(boardBindings.checkoutFresh(session.getId()), session, call);
+        }
+    }
+
+    private <T> T withBinding(GtpBoardBinding binding, Session session, GtpCall<T> call) throws IOException {
+        try {
+            T result = call.apply(syncBoard(binding, session));
+            binding.synced(session.getBoardSize(), session.getMoves());
+            return result;
+        } catch (InvalidMoveException e) {
+            // GTP rejects illegal moves without touching the board
+            binding.synced(session.getBoardSize(), session.getMoves());
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            binding.invalidate();
+            throw e;
+        } finally {
+            boardBindings.checkin(binding);
+        }
+    }
+
+    /**
+     * Like {@link #withSessionBoard}, but hands the board back once the call's future completes.
+     */
+    private <T> CompletableFuture<T> withSessionBoardAsync(Session session, AsyncGtpCall<T> call) {
+        if (!sessionAffinity) {
+            long started = System.nanoTime();
+            GtpConnection connection = backendRouter.borrow();
+            metrics.recordAcquire(false, Duration.ofNanos(System.nanoTime() - started));
+            return applyAsync(call, () -> new SessionBoard(connection, session, setupCommands(session, setupPosition(session)), false))
+                    .whenComplete((result, error) -> backendRouter.release(connection));
+        }
+
+        long started = System.nanoTime();
+        GtpBoardBinding binding = boardBindings.checkout(session.getId());
+        metrics.recordAcquire(true, Duration.ofNanos(System.nanoTime() - started));
+        boolean bound = binding.isSynced();
+        return withBindingAsync(binding, session, call).exceptionallyComposeAsync(error -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (!bound || !(cause instanceof IOException)) {
+                return CompletableFuture.failedFuture(cause);
+            }
+            // Off the I/O thread the failure completes on, on a virtual thread that may wait for the pool
+            logger.warn("Bound GTP board of session {} failed, replaying on a fresh connection: {}", session.getId(), cause.getMessage());
+            return withBindingAsync(boardBindings.checkoutFresh(session.getId()), session, call);
+        }, retries);
+    }
+
+    private <T> CompletableFuture<T> withBindingAsync(GtpBoardBinding binding, Session session, AsyncGtpCall<T> call) {
+        return applyAsync(call, () -> syncBoard(binding, session))
+                .whenComplete((result, error) -> {
+                    if (error == null) {
+                        binding.synced(session.getBoardSize(), session.getMoves());
+                    } else {
+                        binding.invalidate();
+                    }
+                    boardBindings.checkin(binding);
+                });
+    }
 
-        // Replay history
+    private <T> CompletableFuture<T> applyAsync(AsyncGtpCall<T> call, Supplier<SessionBoard> board) {
+        try {
+            return call.apply(board.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private <T> T withConnection(ConnectionCall<T> call) throws IOException {
+        long started = System.nanoTime();
+        GtpConnection connection = backendRouter.borrow();
+        metrics.recordAcquire(false, Duration.ofNanos(System.nanoTime() - started));
+        try {
+            return call.apply(connection);
+        } finally {
+            backendRouter.release(connection);
+        }
+    }
+
+    private SessionBoard syncBoard(GtpBoardBinding binding, Session session) {
         List<String> moves = session.getMoves();
-        logger.info("Replaying {} moves for session {}", moves.size(), session.getId());
-        String color = COLOR_BLACK;
-        for (String move : moves) {
-            String resp = sendGtp(writer, reader, GTP_PLAY + color + " " + move);
-            logger.debug("Replay move {}: {} -> {}", color, move, resp);
-            color = color.equals(COLOR_BLACK) ? COLOR_WHITE : COLOR_BLACK;
+        if (!binding.isPrefixOf(session.getBoardSize(), moves)) {
+            Optional<Board> position = setupPosition(session);
+            binding.setHistoryStart(position.isEmpty() ? 0 : moves.size());
+            return new SessionBoard(binding.getConnection(), session, setupCommands(session, position), false);
+        }
+
+        logger.debug("Undoing {} and applying {} new moves on bound board of session {}",
+                binding.getPendingUndos(), moves.size() - binding.getMoveCount(), session.getId());
+        List<String> commands = new ArrayList<>(Collections.nCopies(binding.getPendingUndos(), GTP_UNDO));
+        for (int i = binding.getMoveCount(); i < moves.size(); i++) {
+            commands.add(GTP_PLAY + determineNextColor(moves.subList(0, i)) + " " + moves.get(i));
         }
+        metrics.recordBoardSetup(SETUP_INCREMENTAL, session, commands.size());
+        return new SessionBoard(binding.getConnection(), session, commands, true);
     }
 
-    private Game buildGame(BufferedWriter writer, BufferedReader reader, Session session, String nextColor) throws IOException {
-        // Fetch stones
-        String blackStones = sendGtp(writer, reader, GTP_LIST_STONES_BLACK);
-        String whiteStones = sendGtp(writer, reader, GTP_LIST_STONES_WHITE);
+    /**
+     * The current board of the session, if the engine board can be set up from its stones alone.
+     * Captured stones and prisoners are lost that way, and GTP has no command to restore a ko point.
+     */
+    private Optional<Board> setupPosition(Session session) {
+        if (!positionSetup) {
+            return Optional.empty();
+        }
 
-        Set<String> blackSet = parseStoneList(blackStones);
-        Set<String> whiteSet = parseStoneList(whiteStones);
-        logger.info("Stones found - Black: {}, White: {}", blackSet.size(), whiteSet.size());
+        Board board = boardCache.replay(session).getBoard();
+        if (board.hasKoPoint()) {
+            logger.debug("Ko point active in session {}, replaying the full history", session.getId());
+            return Optional.empty();
+        }
+        return Optional.of(board);
+    }
 
+    private List<String> setupCommands(Session session, Optional<Board> position) {
+        List<String> commands = new ArrayList<>();
+        commands.add(GTP_BOARDSIZE + session.getBoardSize());
+        commands.add(GTP_CLEAR_BOARD);
+        commands.add(GTP_KOMI + scorer.getKomi());
+
+        position.ifPresentOrElse(
+                board -> placeStones(session, board, commands),
+                () -> replayMoves(session, commands));
+        metrics.recordBoardSetup(position.isPresent() ? SETUP_POSITION : SETUP_REPLAY, session, commands.size());
+        return commands;
+    }
+
+    private void placeStones(Session session, Board board, List<String> commands) {
         int size = session.getBoardSize();
-        List<List<List<Intersection>>> board = new ArrayList<>();
-        List<List<Intersection>> singleBoard = new ArrayList<>();
+        logger.info("Setting up GnuGo board. size: {}, placing {} stones for session {}",
+                size, board.countStones(StoneState.Black) + board.countStones(StoneState.White), session.getId());
 
+        // Stones of a legal position never capture each other, whatever order they are played in
         for (int y = 0; y < size; y++) {
-            List<Intersection> row = new ArrayList<>();
             for (int x = 0; x < size; x++) {
-                String coord = toGtpCoord(x, y, size);
-                StoneState state = StoneState.Empty;
-                if (blackSet.contains(coord)) state = StoneState.Black;
-                else if (whiteSet.contains(coord)) state = StoneState.White;
-                
-                row.add(new Intersection(new Location(x, y), state));
+                StoneState stone = board.get(x, y);
+                if (stone != StoneState.Empty) {
+                    String color = stone == StoneState.Black ? COLOR_BLACK : COLOR_WHITE;
+                    commands.add(GTP_PLAY + color + " " + GtpCoordinates.toGtp(x, y, size));
+                }
             }
-            singleBoard.add(row);
         }
-        
-        // Wrap in single history list
-        board.add(singleBoard);
-        
-        // Check for double pass
+    }
+
+    private void replayMoves(Session session, List<String> commands) {
         List<String> moves = session.getMoves();
-        boolean isGameEnded = false;
-        if (moves.size() >= 2) {
-            String lastMove = moves.get(moves.size() - 1);
-            String secondLastMove = moves.get(moves.size() - 2);
-            if (MOVE_PASS.equalsIgnoreCase(lastMove) && MOVE_PASS.equalsIgnoreCase(secondLastMove)) {
-                isGameEnded = true;
-            }
+        logger.info("Setting up GnuGo board. size: {}, replaying {} moves for session {}", session.getBoardSize(), moves.size(), session.getId());
+
+        String color = COLOR_BLACK;
+        for (String move : moves) {
+            commands.add(GTP_PLAY + color + " " + move);
+            color = color.equals(COLOR_BLACK) ? COLOR_WHITE : COLOR_BLACK;
         }
+    }
 
-        String activeColorStr = nextColor;
-        String passiveColorStr = nextColor.equalsIgnoreCase(COLOR_BLACK) ? COLOR_WHITE : COLOR_BLACK;
+    private Game buildGame(Session session, GtpResponse blackStones, GtpResponse whiteStones) {
+        int size = session.getBoardSize();
+        Board board = new Board(size);
+        placeStones(board, blackStones, size, StoneState.Black);
+        placeStones(board, whiteStones, size, StoneState.White);
+        logger.debug("Stones found - Black: {}, White: {}", board.countStones(StoneState.Black), board.countStones(StoneState.White));
 
-        Player activePlayer = session.getPlayers().stream()
-                .filter(p -> p.getColor().name().equalsIgnoreCase(activeColorStr))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Active player not found for color: " + activeColorStr));
+        return GameStates.build(session, board);
+    }
 
-        Player passivePlayer = session.getPlayers().stream()
-                .filter(p -> p.getColor().name().equalsIgnoreCase(passiveColorStr))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Passive player not found for color: " + passiveColorStr));
-
-        return new Game(
-                session.getBoardSize(),
-                activePlayer,
-                passivePlayer,
-                board,
-                isGameEnded
-        );
-    }
-    
-    private Set<String> parseStoneList(String response) {
-        if (!response.startsWith(GTP_RESPONSE_PREFIX)) return Collections.emptySet();
-        String list = response.substring(1).trim();
-        if (list.isEmpty()) return Collections.emptySet();
-        return Arrays.stream(list.split("\\s+"))
-                .map(String::toUpperCase)
-                .collect(Collectors.toSet());
+    private void placeStones(Board board, GtpResponse stones, int size, StoneState color) {
+        if (stones.isSuccess()) {
+            stones.forEachVertex(size, (x, y) -> board.place(x, y, color));
+        }
     }
 
     private String determineNextColor(List<String> moves) {
         return (moves.size() % 2 == 0) ? COLOR_BLACK : COLOR_WHITE;
     }
 
-    private String sendGtp(BufferedWriter writer, BufferedReader reader, String command) throws IOException {
-        logger.debug("Sending GTP: {}", command);
-        writer.write(command + "\n");
-        writer.flush();
+    private Optional<DeviceMove> parseGnuGoResponse(GtpResponse response, int size) {
+        if (!response.isSuccess()) return Optional.empty();
+        return GtpCoordinates.toDeviceMove(response.getBody(), size);
+    }
 
-        StringBuilder sb = new StringBuilder();
-        String line;
-        boolean firstLine = true;
-        while ((line = reader.readLine()) != null) {
-            if (line.isEmpty() && !firstLine) break;
-            sb.append(line).append("\n");
-            firstLine = false;
-        }
-        return sb.toString().trim();
-    }
-    
-    // ... Helper methods (toGtpCoord, parseGnuGoResponse, mapDifficulty) ...
-    // Reuse from previous implementation but make static or copy.
-    
-    private String toGtpCoord(int x, int y, int height) {
-        char initialCol = (char) ('A' + x);
-        char col = initialCol >= 'I' ? (char) (initialCol + 1) : initialCol;
-        int row = height - y;
-        return String.valueOf(col) + row;
-    }
-
-    private Optional<DeviceMove> parseGnuGoResponse(String response, int size) {
-        if (!response.startsWith(GTP_RESPONSE_PREFIX)) return Optional.empty();
-        String moveStr = response.substring(1).trim();
-        if (moveStr.equalsIgnoreCase(DeviceMove.PASS_ID)) return Optional.of(DeviceMove.pass());
-        
-        String upperCoord = moveStr.toUpperCase();
-        if (upperCoord.length() < 2) return Optional.empty(); 
-        
-        char colChar = upperCoord.charAt(0);
-        int rowNumber = Integer.parseInt(upperCoord.substring(1));
-        int xShift = colChar >= 'J' ? 1 : 0;
-        int x = (colChar - 'A') - xShift;
-        int y = size - rowNumber;
-        return Optional.of(DeviceMove.at(x, y));
-    }
-    
+    /**
+     * Only the dead stones are left to GnuGo; the position is scored in-process with the captures
+     * the session's record counted, so the bound board needs no replay.
+     */
     @Override
     public EndGame getScore(Session session) {
-        try (Socket socket = new Socket(gnuGoHost, gnuGoPort);
-             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));
-             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
-
-            setupGame(writer, reader, session);
-            
-            String response = sendGtp(writer, reader, GTP_FINAL_SCORE);
-            return parseFinalScore(response, session);
-
+        try {
+            return metrics.recordCall(GnuGoMetrics.OPERATION_SCORE, session, () -> {
+                List<Location> deadStones = withSessionBoard(session, board -> {
+                    GtpResponse response = board.execute(GTP_FINAL_STATUS_LIST_DEAD).get(0);
+                    if (!response.isSuccess()) {
+                        throw new RuntimeException("GnuGo failed to list dead stones: " + response);
+                    }
+                    List<Location> stones = new ArrayList<>();
+                    response.forEachVertex(session.getBoardSize(), (x, y) -> stones.add(new Location(x, y)));
+                    return stones;
+                });
+                EndGame endGame = scorer.score(session, boardCache.replay(session), deadStones);
+                logger.info("Score of session {}: {} with {} dead stones", session.getId(), endGame.getScore(), deadStones.size());
+                return endGame;
+            });
         } catch (Exception e) {
             logger.error("GnuGo getScore failed", e);
             throw new RuntimeException("Game Engine Score Error", e);
         }
     }
 
-    private EndGame parseFinalScore(String response, Session session) {
-        if (!response.startsWith(GTP_RESPONSE_PREFIX)) {
-            throw new RuntimeException("GnuGo failed to calculate score: " + response);
-        }
-
-        String scoreStr = response.substring(1).trim(); // e.g. "B+10.5" or "W+5.0"
-        logger.info("GnuGo Final Score: {}", scoreStr);
-
-        double score = 0.0;
-        String winnerColor = "Draw";
-
-        if (scoreStr.toUpperCase().startsWith(SCORE_BLACK_PREFIX)) {
-            winnerColor = "BLACK";
-            try {
-                score = Double.parseDouble(scoreStr.substring(SCORE_BLACK_PREFIX.length()));
-            } catch (NumberFormatException e) {
-                // Handle "B+Resign" etc if needed, though final_score usually returns numbers
-                logger.warn("Could not parse score: {}", scoreStr);
-            }
-        } else if (scoreStr.toUpperCase().startsWith(SCORE_WHITE_PREFIX)) {
-            winnerColor = "WHITE";
-            try {
-                score = Double.parseDouble(scoreStr.substring(SCORE_WHITE_PREFIX.length()));
-            } catch (NumberFormatException e) {
-                 logger.warn("Could not parse score: {}", scoreStr);
-            }
-        }
-
-        String finalWinnerColor = winnerColor;
-        List<Player> winners = session.getPlayers().stream()
-                .filter(p -> p.getColor().name().equalsIgnoreCase(finalWinnerColor))
-                .toList();
-
-        return new EndGame(score, winners);
+    @PreDestroy
+    public void close() {
+        retries.shutdown();
     }
 
     private int mapDifficultyToLevel(BotDifficulty difficulty) {
@@ -321,4 +614,95 @@ public class GnuGoGameEngine implements GameEngine {
                 })
                 .orElse(DEFAULT_LEVEL);
     }
+
+    // Level and time settings only configure the genmove that follows them
+    private static String commandName(List<String> commands) {
+        String command = commands.stream()
+                .filter(c -> !c.startsWith(GTP_LEVEL) && !c.startsWith(GTP_TIME_SETTINGS) && !c.startsWith(GTP_TIME_LEFT))
+                .findFirst()
+                .orElse(commands.get(0));
+        int separator = command.indexOf(' ');
+        return separator < 0 ? command : command.substring(0, separator);
+    }
+
+    // Pondering sends its batches itself, they are metered like the batches of engine calls
+    private List<GtpResponse> sendPonderBatch(GtpConnection connection, Session session, List<String> setup, List<String> commands) throws IOException {
+        List<String> batch = new ArrayList<>(setup);
+        batch.addAll(commands);
+        long started = System.nanoTime();
+        List<GtpResponse> responses = connection.sendBatch(batch);
+        metrics.recordCommand(commandName(commands), session, !setup.isEmpty(), Duration.ofNanos(System.nanoTime() - started));
+        return responses;
+    }
+
+    @FunctionalInterface
+    private interface GtpCall<T> {
+        T apply(SessionBoard board) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface AsyncGtpCall<T> {
+        CompletableFuture<T> apply(SessionBoard board);
+    }
+
+    @FunctionalInterface
+    private interface ConnectionCall<T> {
+        T apply(GtpConnection connection) throws IOException;
+    }
+
+    /**
+     * Prefixes the first batch sent for a call with the commands that bring the engine board in sync
+     * with the session, so setup, replay and query share a single round trip.
+     */
+    private final class SessionBoard {
+        private final GtpConnection connection;
+        private final Session session;
+        private List<String> syncCommands;
+        private boolean incremental;
+
+        private SessionBoard(GtpConnection connection, Session session, List<String> syncCommands, boolean incremental) {
+            this.connection = connection;
+            this.session = session;
+            this.syncCommands = syncCommands;
+            this.incremental = incremental;
+        }
+
+        List<GtpResponse> execute(String... commands) throws IOException {
+            return connection.await(executeAsync(commands));
+        }
+
+        CompletableFuture<List<GtpResponse>> executeAsync(String... commands) {
+            return send(commands).thenCompose(responses -> {
+                List<GtpResponse> syncResponses = responses.subList(0, syncCommands.size());
+                if (incremental && syncResponses.stream().anyMatch(response -> !response.isSuccess())) {
+                    logger.warn("Bound board of session {} diverged, replaying", session.getId());
+                    syncCommands = setupCommands(session, Optional.empty());
+                    return send(commands);
+                }
+                return CompletableFuture.completedFuture(responses);
+            }).thenApply(responses -> {
+                List<GtpResponse> result = responses.subList(syncCommands.size(), responses.size());
+                syncCommands = List.of();
+                incremental = false;
+                return result;
+            });
+        }
+
+        private CompletableFuture<List<GtpResponse>> send(String... commands) {
+            boolean setup = !syncCommands.isEmpty();
+            long started = System.nanoTime();
+            return connection.sendBatchAsync(withSync(commands)).whenComplete((responses, error) -> {
+                if (error == null) {
+                    metrics.recordCommand(commandName(Arrays.asList(commands)), session, setup, Duration.ofNanos(System.nanoTime() - started));
+                }
+            });
+        }
+
+        private List<String> withSync(String... commands) {
+            List<String> batch = new ArrayList<>(syncCommands.size() + commands.length);
+            batch.addAll(syncCommands);
+            batch.addAll(Arrays.asList(commands));
+            return batch;
+        }
+    }
 }
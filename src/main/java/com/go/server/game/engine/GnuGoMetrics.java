@@ -0,0 +1,145 @@
+package com.go.server.game.engine;
+
+import com.go.server.game.session.exception.InvalidMoveException;
+import com.go.server.game.session.model.Session;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Meters for the GnuGo engine: whole engine calls, the GTP batches they send, board setup length
+ * and connection acquisition. Calls and commands are tagged by board size and bot difficulty.
+ */
+@Component
+public class GnuGoMetrics {
+    static final String OPERATION_PROCESS_MOVE = "process_move";
+    static final String OPERATION_GENERATE_MOVE = "generate_move";
+    static final String OPERATION_GAME_STATE = "game_state";
+    static final String OPERATION_SCORE = "score";
+    static final String OPERATION_UNDO = "undo";
+    private static final String NO_DIFFICULTY = "none";
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger activeCalls = new AtomicInteger();
+
+    public GnuGoMetrics(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("game.engine.calls.active", activeCalls, AtomicInteger::get)
+                .description("Engine calls in flight")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Times the call and counts its failures by cause. Rejected moves are an expected outcome and
+     * are not counted as engine errors.
+     */
+    public <T> T recordCall(final String operation, final Session session, final Callable<T> call) throws Exception {
+        activeCalls.incrementAndGet();
+        final var sample = Timer.start(meterRegistry);
+        Exception failure = null;
+        try {
+            return call.call();
+        } catch (Exception error) {
+            failure = error;
+            throw error;
+        } finally {
+            finishCall(operation, session, sample, failure);
+        }
+    }
+
+    /**
+     * Like {@link #recordCall}, for a call that completes asynchronously.
+     */
+    public <T> CompletableFuture<T> recordCallAsync(final String operation, final Session session, final Supplier<CompletableFuture<T>> call) {
+        activeCalls.incrementAndGet();
+        final var sample = Timer.start(meterRegistry);
+        CompletableFuture<T> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException error) {
+            result = CompletableFuture.failedFuture(error);
+        }
+        return result.whenComplete((value, error) -> finishCall(operation, session, sample,
+                error instanceof CompletionException && error.getCause() != null ? error.getCause() : error));
+    }
+
+    private void finishCall(final String operation, final Session session, final Timer.Sample sample, final Throwable error) {
+        var outcome = "success";
+        if (error instanceof InvalidMoveException) {
+            outcome = "rejected";
+        } else if (error != null) {
+            outcome = "error";
+            meterRegistry.counter("game.engine.errors", "operation", operation, "cause", rootCause(error).getSimpleName()).increment();
+        }
+        activeCalls.decrementAndGet();
+        sample.stop(Timer.builder("game.engine.call")
+                .description("Duration of engine calls, including connection acquisition and board setup")
+                .tags(sessionTags(session))
+                .tags("operation", operation, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    /**
+     * Records a GTP batch under the command it was sent for. Batches that also set up or sync the
+     * board are tagged apart, so their setup does not show up as command latency.
+     */
+    public void recordCommand(final String command, final Session session, final boolean setup, final Duration duration) {
+        Timer.builder("game.engine.gtp.command")
+                .description("Round trip of a GTP batch, by the command it was sent for and whether it set up the board")
+                .tags(sessionTags(session))
+                .tag("command", command)
+                .tag("setup", String.valueOf(setup))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(duration);
+    }
+
+    public void recordBoardSetup(final String mode, final Session session, final int commands) {
+        DistributionSummary.builder("game.engine.board.setup")
+                .description("GTP commands needed to bring the engine board in sync with the session")
+                .baseUnit("commands")
+                .tag("mode", mode)
+                .tag("size", String.valueOf(session.getBoardSize()))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(commands);
+    }
+
+    public void recordAcquire(final boolean sessionAffinity, final Duration duration) {
+        Timer.builder("game.engine.connection.acquire")
+                .description("Time to get a GTP connection or the bound board of a session")
+                .tag("affinity", String.valueOf(sessionAffinity))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(duration);
+    }
+
+    public int getActiveCalls() {
+        return activeCalls.get();
+    }
+
+    private Tags sessionTags(final Session session) {
+        return Tags.of(
+                "size", String.valueOf(session.getBoardSize()),
+                "difficulty", session.getDifficulty().map(Enum::name).orElse(NO_DIFFICULTY));
+    }
+
+    private Class<?> rootCause(final Throwable error) {
+        var cause = error;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause.getClass();
+    }
+}
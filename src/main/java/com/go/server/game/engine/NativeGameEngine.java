@@ -0,0 +1,125 @@
+package com.go.server.game.engine;
+
+import com.go.server.game.engine.gtp.GtpCoordinates;
+import com.go.server.game.model.*;
+import com.go.server.game.session.exception.InvalidMoveException;
+import com.go.server.game.session.model.Player;
+import com.go.server.game.session.model.Session;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Applies the rules of Go in-process and only delegates bot moves and scoring to GnuGo,
+ * so games between humans never need an engine connection. The in-process calls are metered like the GnuGo ones.
+ */
+@Primary
+@Service
+@ConditionalOnProperty(name = "game.engine.native.enabled", havingValue = "true", matchIfMissing = true)
+public class NativeGameEngine implements GameEngine {
+    private final GnuGoGameEngine gnuGoGameEngine;
+    private final SessionBoardCache boardCache;
+    private final GnuGoMetrics metrics;
+    private final GameScorer scorer;
+
+    public NativeGameEngine(final GnuGoGameEngine gnuGoGameEngine, final SessionBoardCache boardCache, final GnuGoMetrics metrics,
+                            final GameScorer scorer) {
+        this.gnuGoGameEngine = gnuGoGameEngine;
+        this.boardCache = boardCache;
+        this.metrics = metrics;
+        this.scorer = scorer;
+    }
+
+    @Override
+    public Game processMove(Session session, DeviceMove move) {
+        return recordCall(GnuGoMetrics.OPERATION_PROCESS_MOVE, session, () -> play(session, move));
+    }
+
+    private Game play(Session session, DeviceMove move) {
+        GameRecord record = boardCache.replay(session);
+
+        if (move.isPass()) {
+            record.pass();
+        } else {
+            MoveLegality legality = record.check(move.getX(), move.getY());
+            if (!legality.isLegal()) {
+                throw new InvalidMoveException("Illegal move: " + legality.getDescription());
+            }
+            record.play(move.getX(), move.getY());
+        }
+
+        session.addMove(GtpCoordinates.toGtp(move, session.getBoardSize()));
+        boardCache.update(session, record);
+        Game game = GameStates.build(session, record.getBoard());
+        if (game.getActivePlayer().isBot() || game.getPassivePlayer().isBot()) {
+            gnuGoGameEngine.movePlayed(session, game);
+        }
+        return game;
+    }
+
+    @Override
+    public Optional<DeviceMove> generateMove(Session session) {
+        return gnuGoGameEngine.generateMove(session);
+    }
+
+    @Override
+    public CompletableFuture<Optional<DeviceMove>> generateMoveAsync(Session session) {
+        return gnuGoGameEngine.generateMoveAsync(session);
+    }
+
+    @Override
+    public Game getGameState(Session session) {
+        return recordCall(GnuGoMetrics.OPERATION_GAME_STATE, session, () -> GameStates.build(session, boardCache.replay(session).getBoard()));
+    }
+
+    // The cached record only moves forward, so the shorter game is replayed in-process
+    @Override
+    public Game undoMoves(Session session, int count) {
+        return recordCall(GnuGoMetrics.OPERATION_UNDO, session, () -> {
+            session.removeLastMoves(count);
+            gnuGoGameEngine.movesUndone(session, count);
+            return GameStates.build(session, boardCache.replay(session).getBoard());
+        });
+    }
+
+    // Only bots need GnuGo to tell the dead stones; games between humans are scored as they stand
+    @Override
+    public EndGame getScore(Session session) {
+        if (hasBot(session)) {
+            return gnuGoGameEngine.getScore(session);
+        }
+        return recordCall(GnuGoMetrics.OPERATION_SCORE, session, () -> scorer.score(session, boardCache.replay(session), List.of()));
+    }
+
+    // Games between humans never reach GnuGo
+    @Override
+    public void prepareSession(Session session) {
+        if (hasBot(session)) {
+            gnuGoGameEngine.prepareSession(session);
+        }
+    }
+
+    @Override
+    public void releaseSession(Session session) {
+        gnuGoGameEngine.releaseSession(session);
+    }
+
+    private static boolean hasBot(Session session) {
+        return session.getPlayers().stream().anyMatch(Player::isBot);
+    }
+
+    private <T> T recordCall(String operation, Session session, Callable<T> call) {
+        try {
+            return metrics.recordCall(operation, session, call);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.go.server.game.engine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Precomputes bot replies to the likely human moves while the human is thinking. Pondering runs as
+ * {@link EnginePriority#ANALYSIS} work on the engine workers, only while few real engine calls are in
+ * flight, and stops as soon as the session it ponders for gets a real call.
+ */
+@Component
+public class Ponderer {
+    private final Logger logger = LoggerFactory.getLogger(Ponderer.class);
+    private final Map<String, PonderJob> jobs = new ConcurrentHashMap<>();
+    private final GnuGoMetrics engineMetrics;
+    private final EngineWorkScheduler scheduler;
+    private final boolean enabled;
+    private final int candidates;
+    private final int maxActiveCalls;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter skipped;
+    private final Timer engineTime;
+    private final Timer wastedTime;
+
+    public Ponderer(final MeterRegistry meterRegistry,
+                    final GnuGoMetrics engineMetrics,
+                    final EngineWorkScheduler scheduler,
+                    @Value("${game.bot.ponder.enabled:false}") final boolean enabled,
+                    @Value("${game.bot.ponder.candidates:3}") final int candidates,
+                    @Value("${game.bot.ponder.max-active-calls:1}") final int maxActiveCalls) {
+        this.engineMetrics = engineMetrics;
+        this.scheduler = scheduler;
+        this.enabled = enabled;
+        this.candidates = candidates;
+        this.maxActiveCalls = maxActiveCalls;
+        this.hits = Counter.builder("game.bot.ponder.hits")
+                .description("Bot moves answered from a pondered reply")
+                .register(meterRegistry);
+        this.misses = Counter.builder("game.bot.ponder.misses")
+                .description("Bot moves of pondered sessions whose human move was not pondered")
+                .register(meterRegistry);
+        this.skipped = Counter.builder("game.bot.ponder.skipped")
+                .description("Pondering dropped because the analysis queue was full")
+                .register(meterRegistry);
+        this.engineTime = Timer.builder("game.bot.ponder.engine.time")
+                .description("Engine time spent on pondered replies")
+                .register(meterRegistry);
+        this.wastedTime = Timer.builder("game.bot.ponder.wasted")
+                .description("Engine time spent on pondered replies that were never used")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getCandidates() {
+        return candidates;
+    }
+
+    public boolean hasSpareCapacity() {
+        return engineMetrics.getActiveCalls() <= maxActiveCalls;
+    }
+
+    /**
+     * Queues pondering for the session, replacing earlier pondering. The replies are meant for the
+     * position after the human's next move, which will be move number {@code moveNumber}.
+     */
+    public void ponder(final String userId, final String sessionId, final int moveNumber, final PonderTask task) {
+        final var job = new PonderJob(moveNumber);
+        Optional.ofNullable(jobs.put(sessionId, job)).ifPresent(previous -> discard(previous, Duration.ZERO));
+
+        try {
+            scheduler.submit(EnginePriority.ANALYSIS, userId, sessionId, () -> run(sessionId, job, task));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(sessionId, job);
+            skipped.increment();
+        }
+    }
+
+    /**
+     * Stops pondering for the session without dropping the replies found so far.
+     */
+    public void yieldTo(final String sessionId) {
+        Optional.ofNullable(jobs.get(sessionId)).ifPresent(job -> job.stopped = true);
+    }
+
+    /**
+     * Takes the pondered reply to the position the session reached with move {@code moveNumber}.
+     * The other replies of the session are dropped and count as wasted engine time.
+     */
+    public Optional<String> take(final String sessionId, final int moveNumber, final long hash) {
+        final var job = jobs.remove(sessionId);
+        if (job == null) {
+            return Optional.empty();
+        }
+
+        final var reply = Optional.ofNullable(job.moveNumber == moveNumber ? job.replies.get(hash) : null);
+        reply.ifPresentOrElse(r -> hits.increment(), misses::increment);
+        discard(job, reply.map(PonderedReply::engineTime).orElse(Duration.ZERO));
+        return reply.map(PonderedReply::vertex);
+    }
+
+    public void discard(final String sessionId) {
+        Optional.ofNullable(jobs.remove(sessionId)).ifPresent(job -> discard(job, Duration.ZERO));
+    }
+
+    @PreDestroy
+    public void close() {
+        jobs.keySet().forEach(this::discard);
+    }
+
+    private void discard(final PonderJob job, final Duration used) {
+        synchronized (job) {
+            job.stopped = true;
+            job.discarded = true;
+            wastedTime.record(Duration.ofNanos(job.engineTime).minus(used));
+        }
+    }
+
+    private void run(final String sessionId, final PonderJob job, final PonderTask task) {
+        if (job.stopped || !hasSpareCapacity()) {
+            return;
+        }
+
+        try {
+            task.run(new Replies(job));
+        } catch (Exception e) {
+            logger.debug("Pondering for session {} failed: {}", sessionId, e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    public interface PonderTask {
+        void run(Replies replies) throws Exception;
+    }
+
+    /**
+     * Handed to a ponder task to store its replies and to learn when to stop.
+     */
+    public final class Replies {
+        private final PonderJob job;
+
+        private Replies(final PonderJob job) {
+            this.job = job;
+        }
+
+        public boolean isStopped() {
+            return job.stopped || !hasSpareCapacity();
+        }
+
+        public void add(final long hash, final String vertex, final Duration time) {
+            engineTime.record(time);
+            synchronized (job) {
+                if (job.discarded) {
+                    wastedTime.record(time);
+                    return;
+                }
+                job.engineTime += time.toNanos();
+                job.replies.put(hash, new PonderedReply(vertex, time));
+            }
+        }
+    }
+
+    private static final class PonderJob {
+        private final int moveNumber;
+        private final Map<Long, PonderedReply> replies = new ConcurrentHashMap<>();
+        private long engineTime = 0;
+        private volatile boolean stopped = false;
+        private boolean discarded = false;
+
+        private PonderJob(final int moveNumber) {
+            this.moveNumber = moveNumber;
+        }
+    }
+
+    private record PonderedReply(String vertex, Duration engineTime) {
+    }
+}
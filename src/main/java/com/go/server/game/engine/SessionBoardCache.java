@@ -0,0 +1,115 @@
+package com.go.server.game.engine;
+
+import com.go.server.game.model.GameRecord;
+import com.go.server.game.model.MoveLegality;
+import com.go.server.game.session.model.MoveList;
+import com.go.server.game.session.model.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the latest board of active sessions, so a position only needs the new moves applied
+ * instead of a replay of the whole game.
+ */
+@Component
+public class SessionBoardCache {
+    private final Logger logger = LoggerFactory.getLogger(SessionBoardCache.class);
+    private final Map<String, CachedRecord> records = new ConcurrentHashMap<>();
+    private final int maxSessions;
+
+    public SessionBoardCache(@Value("${game.board-cache.max-sessions:1024}") final int maxSessions) {
+        this.maxSessions = maxSessions;
+    }
+
+    /**
+     * Returns the record of the session's current position. The record is a copy and may be modified.
+     */
+    public GameRecord replay(final Session session) {
+        final int size = session.getBoardSize();
+        final MoveList moves = session.getMoves().copy();
+        final var cached = Optional.ofNullable(records.get(session.getId()))
+                .filter(entry -> entry.isPrefixOf(size, moves));
+
+        final GameRecord record = cached.map(entry -> entry.record.copy()).orElseGet(() -> new GameRecord(size));
+        final int applied = cached.map(entry -> entry.moves.size()).orElse(0);
+        for (int i = applied; i < moves.size(); i++) {
+            apply(session, record, moves.getPacked(i));
+        }
+
+        if (applied < moves.size() || cached.isEmpty()) {
+            store(session.getId(), size, moves, record.copy());
+        } else {
+            cached.get().lastUsed = Instant.now();
+        }
+        return record;
+    }
+
+    /**
+     * Stores a record that already holds all moves of the session.
+     */
+    public void update(final Session session, final GameRecord record) {
+        store(session.getId(), session.getBoardSize(), session.getMoves().copy(), record.copy());
+    }
+
+    public void evict(final String sessionId) {
+        records.remove(sessionId);
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    private void apply(final Session session, final GameRecord record, final short move) {
+        if (move == MoveList.PASS) {
+            record.pass();
+            return;
+        }
+
+        final int x = MoveList.column(move);
+        final int y = session.getBoardSize() - MoveList.row(move);
+        final MoveLegality legality = record.check(x, y);
+        if (!legality.isLegal()) {
+            logger.warn("Skipping illegal move {} ({}) in history of session {}", MoveList.vertex(move), legality, session.getId());
+            // Keep the move count in step with the session
+            record.pass();
+            return;
+        }
+        record.play(x, y);
+    }
+
+    private void store(final String sessionId, final int size, final MoveList moves, final GameRecord record) {
+        records.put(sessionId, new CachedRecord(size, moves, record));
+
+        while (records.size() > maxSessions) {
+            records.entrySet()
+                    .stream()
+                    .min(Comparator.comparing(entry -> entry.getValue().lastUsed))
+                    .ifPresent(oldest -> records.remove(oldest.getKey()));
+        }
+    }
+
+    private static final class CachedRecord {
+        private final int size;
+        private final MoveList moves;
+        private final GameRecord record;
+        private volatile Instant lastUsed = Instant.now();
+
+        private CachedRecord(final int size, final MoveList moves, final GameRecord record) {
+            this.size = size;
+            this.moves = moves;
+            this.record = record;
+        }
+
+        private boolean isPrefixOf(final int size, final MoveList moves) {
+            return this.size == size && this.moves.isPrefixOf(moves);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.go.server.game.engine;
+
+import com.go.server.game.engine.gtp.GtpBackendRouter;
+import com.go.server.game.engine.gtp.GtpConnection;
+import com.go.server.game.engine.gtp.GtpResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps idle GTP connections whose board is already set up for an empty game of a given size, so
+ * a new session starts on a warm engine. Connections are replenished on a background thread, and the
+ * number kept per size follows the recent rate of new sessions of that size. Warm boards count against
+ * the budget of held connections of the {@link GtpBackendRouter}, so they never crowd out the calls.
+ */
+@Component
+public class WarmBoardPool {
+    private static final double SMOOTHING = 0.3;
+
+    private final Logger logger = LoggerFactory.getLogger(WarmBoardPool.class);
+    private final GtpBackendRouter backendRouter;
+    private final Map<Integer, SizePool> pools;
+    private final ExecutorService replenisher;
+    private final AtomicBoolean replenishing = new AtomicBoolean();
+    private final boolean enabled;
+    private final int minIdle;
+    private final int maxIdle;
+    private final double lookaheadSeconds;
+    private final double komi;
+    private long lastAdapted = System.nanoTime();
+
+    public WarmBoardPool(final GtpBackendRouter backendRouter,
+                         final MeterRegistry meterRegistry,
+                         @Value("${gnugo.warm-pool.enabled:true}") final boolean enabled,
+                         @Value("${gnugo.warm-pool.sizes:9,13,19}") final int[] sizes,
+                         @Value("${gnugo.warm-pool.min-idle:1}") final int minIdle,
+                         @Value("${gnugo.warm-pool.max-idle:2}") final int maxIdle,
+                         @Value("${gnugo.warm-pool.lookahead:30000}") final long lookahead,
+                         @Value("${game.scoring.komi:5.5}") final double komi) {
+        this.backendRouter = backendRouter;
+        this.enabled = enabled;
+        this.minIdle = minIdle;
+        this.maxIdle = maxIdle;
+        this.lookaheadSeconds = lookahead / 1000.0;
+        this.komi = komi;
+        this.pools = Arrays.stream(sizes)
+                .boxed()
+                .distinct()
+                .collect(Collectors.toUnmodifiableMap(Function.identity(), size -> new SizePool(size, minIdle, meterRegistry)));
+        this.replenisher = Executors.newSingleThreadExecutor(runnable -> {
+            final var thread = new Thread(runnable, "warm-board-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        replenish();
+    }
+
+    /**
+     * Hands out a connection with an empty board of the size set up. The caller owns the connection
+     * and returns it to the {@link GtpBackendRouter}.
+     */
+    public Optional<GtpConnection> take(final int size) {
+        final var pool = pools.get(size);
+        if (!enabled || pool == null) {
+            return Optional.empty();
+        }
+
+        pool.requested.incrementAndGet();
+        GtpConnection connection;
+        while ((connection = poll(pool)) != null && !connection.isUsable()) {
+            backendRouter.release(connection);
+        }
+        (connection != null ? pool.hits : pool.misses).increment();
+        replenish();
+        return Optional.ofNullable(connection);
+    }
+
+    /**
+     * Sizes every pool for the sessions expected within the lookahead at the smoothed creation rate,
+     * and releases warm connections beyond that.
+     */
+    @Scheduled(fixedDelayString = "${gnugo.warm-pool.adapt-interval:10000}")
+    public void adapt() {
+        if (!enabled) {
+            return;
+        }
+
+        final var now = System.nanoTime();
+        final var elapsedSeconds = Math.max(1e-3, (now - lastAdapted) / 1e9);
+        lastAdapted = now;
+        for (final var pool : pools.values()) {
+            final var rate = pool.requested.getAndSet(0) / elapsedSeconds;
+            pool.rate = pool.rate + SMOOTHING * (rate - pool.rate);
+            pool.target.set(Math.max(minIdle, Math.min(maxIdle, (int) Math.ceil(pool.rate * lookaheadSeconds))));
+
+            GtpConnection surplus;
+            while (pool.idle.size() > pool.target.get() && (surplus = poll(pool)) != null) {
+                backendRouter.release(surplus);
+            }
+        }
+        replenish();
+    }
+
+    public int getIdleCount(final int size) {
+        return Optional.ofNullable(pools.get(size)).map(pool -> pool.idle.size()).orElse(0);
+    }
+
+    public int getTarget(final int size) {
+        return Optional.ofNullable(pools.get(size)).map(pool -> pool.target.get()).orElse(0);
+    }
+
+    private void replenish() {
+        if (enabled && replenishing.compareAndSet(false, true)) {
+            try {
+                replenisher.execute(this::fill);
+            } catch (RuntimeException error) {
+                replenishing.set(false);
+            }
+        }
+    }
+
+    private void fill() {
+        var failed = false;
+        try {
+            for (final var pool : pools.values()) {
+                while (!failed && pool.idle.size() < pool.target.get()) {
+                    // Without room in the budget of held connections the warm boards wait for the next adapt()
+                    if (!backendRouter.tryHold()) {
+                        failed = true;
+                        break;
+                    }
+                    final var connection = borrow();
+                    if (setUp(connection, pool.size)) {
+                        pool.idle.add(connection);
+                    } else {
+                        backendRouter.unhold();
+                        backendRouter.release(connection);
+                        failed = true;
+                    }
+                }
+            }
+        } catch (RuntimeException error) {
+            logger.debug("Could not warm up GTP boards: {}", error.getMessage());
+            failed = true;
+        } finally {
+            replenishing.set(false);
+        }
+
+        // Sessions taken while filling; after a failure the next adapt() tries again
+        if (!failed && pools.values().stream().anyMatch(pool -> pool.idle.size() < pool.target.get())) {
+            replenish();
+        }
+    }
+
+    private GtpConnection borrow() {
+        try {
+            return backendRouter.borrow();
+        } catch (RuntimeException error) {
+            backendRouter.unhold();
+            throw error;
+        }
+    }
+
+    private GtpConnection poll(final SizePool pool) {
+        final var connection = pool.idle.poll();
+        if (connection != null) {
+            backendRouter.unhold();
+        }
+        return connection;
+    }
+
+    private boolean setUp(final GtpConnection connection, final int size) {
+        try {
+            final var responses = connection.sendBatch(List.of(
+                    "boardsize " + size,
+                    "clear_board",
+                    "komi " + komi));
+            return responses.stream().allMatch(GtpResponse::isSuccess);
+        } catch (Exception error) {
+            logger.debug("Setting up a warm {}x{} board failed: {}", size, size, error.getMessage());
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        replenisher.shutdownNow();
+        pools.values().forEach(pool -> {
+            GtpConnection connection;
+            while ((connection = poll(pool)) != null) {
+                backendRouter.release(connection);
+            }
+        });
+    }
+
+    private static final class SizePool {
+        private final int size;
+        private final Queue<GtpConnection> idle = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger requested = new AtomicInteger();
+        private final AtomicInteger target;
+        private final Counter hits;
+        private final Counter misses;
+        private volatile double rate;
+
+        private SizePool(final int size, final int minIdle, final MeterRegistry meterRegistry) {
+            this.size = size;
+            this.target = new AtomicInteger(minIdle);
+            this.hits = Counter.builder("game.engine.warm.hits")
+                    .description("New sessions that started on a warm engine board")
+                    .tag("size", String.valueOf(size))
+                    .register(meterRegistry);
+            this.misses = Counter.builder("game.engine.warm.misses")
+                    .description("New sessions that found no warm engine board")
+                    .tag("size", String.valueOf(size))
+                    .register(meterRegistry);
+            Gauge.builder("game.engine.warm.idle", idle, Queue::size)
+                    .description("Warm engine boards waiting for a session")
+                    .tag("size", String.valueOf(size))
+                    .register(meterRegistry);
+        }
+    }
+}
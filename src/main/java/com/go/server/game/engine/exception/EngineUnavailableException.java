@@ -0,0 +1,11 @@
+package com.go.server.game.engine.exception;
+
+public class EngineUnavailableException extends RuntimeException {
+    public EngineUnavailableException(String message) {
+        super(message);
+    }
+
+    public EngineUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,123 @@
+package com.go.server.game.engine.gtp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A GnuGo instance together with its connection pool and circuit breaker. After a number of
+ * consecutive failures the backend is ejected from routing until a probe succeeds again.
+ * Its load is the number of GTP requests in flight on its connections; connections merely held,
+ * such as the boards of idle sessions, cost the engine nothing.
+ */
+public class GtpBackend {
+    private static final String GTP_RESPONSE_PREFIX = "=";
+
+    public enum State {
+        CLOSED,
+        OPEN
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(GtpBackend.class);
+    private final String name;
+    private final GtpConnectionPool pool;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private Instant openedAt = Instant.MIN;
+
+    public GtpBackend(final String name, final GtpConnectionPool pool, final int failureThreshold, final Duration openDuration) {
+        this.name = name;
+        this.pool = pool;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public GtpConnectionPool getPool() {
+        return pool;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized boolean isAvailable() {
+        return state == State.CLOSED;
+    }
+
+    /**
+     * The GTP requests sent to this backend and not answered yet.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getBorrowedCount() {
+        return pool.getBorrowedCount();
+    }
+
+    /**
+     * Counts the requests of a connection borrowed from this backend towards its load.
+     */
+    void track(final GtpConnection connection) {
+        connection.countRequestsIn(inFlight);
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+            logger.warn("Ejecting GTP backend {} after {} consecutive failures", name, consecutiveFailures);
+            state = State.OPEN;
+            openedAt = Instant.now();
+        }
+    }
+
+    public synchronized boolean isProbeDue() {
+        return state == State.OPEN && Duration.between(openedAt, Instant.now()).compareTo(openDuration) >= 0;
+    }
+
+    /**
+     * Sends the validation command over a pool connection and re-admits the backend if it answers.
+     */
+    public boolean probe(final String validationCommand) {
+        GtpConnection connection = null;
+        try {
+            connection = pool.borrow();
+            if (connection.send(validationCommand).startsWith(GTP_RESPONSE_PREFIX)) {
+                readmit();
+                return true;
+            }
+        } catch (IOException | RuntimeException error) {
+            logger.debug("Probe of GTP backend {} failed: {}", name, error.getMessage());
+        } finally {
+            if (connection != null) {
+                pool.release(connection);
+            }
+        }
+
+        synchronized (this) {
+            openedAt = Instant.now();
+        }
+        return false;
+    }
+
+    private synchronized void readmit() {
+        logger.info("GTP backend {} passed its probe, re-admitting it", name);
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+}
@@ -0,0 +1,183 @@
+package com.go.server.game.engine.gtp;
+
+import com.go.server.game.engine.exception.EngineUnavailableException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spreads GTP connections over several GnuGo backends. Every borrow goes to the available backend
+ * with the fewest requests in flight, and among equally loaded ones to the one with the fewest
+ * borrowed connections; sessions stay on their backend through their board binding.
+ * <p>
+ * Connections kept idle between calls, by session bindings or as warm boards, share one budget that
+ * leaves a reserve of the pool to the calls themselves.
+ */
+@Component
+public class GtpBackendRouter {
+    private final Logger logger = LoggerFactory.getLogger(GtpBackendRouter.class);
+    private final List<GtpBackend> backends;
+    private final String validationCommand;
+    private final Map<GtpConnection, GtpBackend> leases = new ConcurrentHashMap<>();
+    private final AtomicInteger held = new AtomicInteger();
+    private final int maxHeld;
+
+    @Autowired
+    public GtpBackendRouter(final GtpEventLoop loop,
+                            @Value("${gnugo.backends:}") final String backends,
+                            @Value("${gnugo.host:localhost}") final String host,
+                            @Value("${gnugo.port:8001}") final int port,
+                            @Value("${gnugo.pool.connect-timeout:5000}") final int connectTimeout,
+                            @Value("${gnugo.pool.read-timeout:120000}") final int readTimeout,
+                            @Value("${gnugo.pool.min-idle:2}") final int minIdle,
+                            @Value("${gnugo.pool.max-size:16}") final int maxSize,
+                            @Value("${gnugo.pool.reserve:4}") final int reserve,
+                            @Value("${gnugo.pool.max-idle-time:300000}") final long maxIdleTime,
+                            @Value("${gnugo.pool.borrow-timeout:5000}") final long borrowTimeout,
+                            @Value("${gnugo.pool.validation-interval:10000}") final long validationInterval,
+                            @Value("${gnugo.pool.validation-command:protocol_version}") final String validationCommand,
+                            @Value("${gnugo.circuit-breaker.failure-threshold:3}") final int failureThreshold,
+                            @Value("${gnugo.circuit-breaker.open-duration:30000}") final long openDuration) {
+        this(Arrays.stream((backends.isBlank() ? host + ":" + port : backends).split(","))
+                .map(String::trim)
+                .filter(address -> !address.isEmpty())
+                .map(address -> {
+                    final var separator = address.lastIndexOf(':');
+                    final var backendHost = address.substring(0, separator);
+                    final var backendPort = Integer.parseInt(address.substring(separator + 1));
+                    final var pool = new GtpConnectionPool(
+                            () -> GtpConnection.open(backendHost, backendPort, loop, connectTimeout, readTimeout),
+                            minIdle,
+                            maxSize,
+                            Duration.ofMillis(maxIdleTime),
+                            Duration.ofMillis(borrowTimeout),
+                            Duration.ofMillis(validationInterval),
+                            validationCommand);
+                    return new GtpBackend(address, pool, failureThreshold, Duration.ofMillis(openDuration));
+                })
+                .toList(), validationCommand, reserve);
+    }
+
+    public GtpBackendRouter(final List<GtpBackend> backends, final String validationCommand) {
+        this(backends, validationCommand, 1);
+    }
+
+    public GtpBackendRouter(final List<GtpBackend> backends, final String validationCommand, final int reserve) {
+        if (backends.isEmpty()) {
+            throw new IllegalArgumentException("At least one GTP backend is required");
+        }
+        this.backends = List.copyOf(backends);
+        this.validationCommand = validationCommand;
+        this.maxHeld = Math.max(0, getMaxSize() - reserve);
+        logger.info("Routing GTP connections to {}", this.backends.stream().map(GtpBackend::getName).toList());
+    }
+
+    public GtpConnection borrow() {
+        final var candidates = backends.stream()
+                .filter(GtpBackend::isAvailable)
+                .sorted(Comparator.comparingInt(GtpBackend::getInFlight).thenComparingInt(GtpBackend::getBorrowedCount))
+                .toList();
+        if (candidates.isEmpty()) {
+            throw new EngineUnavailableException("All GTP backends are unavailable");
+        }
+
+        EngineUnavailableException lastError = null;
+        for (final var backend : candidates) {
+            try {
+                final var connection = backend.getPool().borrow();
+                backend.track(connection);
+                leases.put(connection, backend);
+                return connection;
+            } catch (EngineUnavailableException error) {
+                // Only failed connects count against the backend, an exhausted pool is just busy
+                if (error.getCause() instanceof IOException) {
+                    backend.recordFailure();
+                }
+                logger.debug("GTP backend {} could not provide a connection: {}", backend.getName(), error.getMessage());
+                lastError = error;
+            }
+        }
+        throw lastError;
+    }
+
+    public void release(final GtpConnection connection) {
+        final var backend = leases.remove(connection);
+        if (backend == null) {
+            logger.warn("Released a GTP connection that was not borrowed from a backend");
+            connection.close();
+            return;
+        }
+
+        if (connection.isUsable()) {
+            backend.recordSuccess();
+        } else {
+            backend.recordFailure();
+        }
+        backend.getPool().release(connection);
+    }
+
+    /**
+     * Whether the backend the connection belongs to is still admitted, so a bound board on an
+     * ejected backend can be moved elsewhere.
+     */
+    public boolean isAvailable(final GtpConnection connection) {
+        final var backend = leases.get(connection);
+        return backend != null && backend.isAvailable();
+    }
+
+    /**
+     * Claims room in the budget for a connection that is about to be kept idle between calls.
+     *
+     * @return false if the budget is spent, the connection should be released then
+     */
+    public boolean tryHold() {
+        return held.getAndUpdate(count -> count < maxHeld ? count + 1 : count) < maxHeld;
+    }
+
+    /**
+     * Gives back the room of a held connection that is in use again or released.
+     */
+    public void unhold() {
+        held.decrementAndGet();
+    }
+
+    public int getHeldCount() {
+        return held.get();
+    }
+
+    public int getMaxSize() {
+        return backends.stream().mapToInt(backend -> backend.getPool().getMaxSize()).sum();
+    }
+
+    public List<GtpBackend> getBackends() {
+        return backends;
+    }
+
+    @Scheduled(fixedDelayString = "${gnugo.pool.maintenance-interval:30000}")
+    public void maintain() {
+        backends.stream().filter(GtpBackend::isAvailable).forEach(backend -> backend.getPool().maintain());
+    }
+
+    @Scheduled(fixedDelayString = "${gnugo.circuit-breaker.probe-interval:5000}")
+    public void probe() {
+        backends.stream().filter(GtpBackend::isProbeDue).forEach(backend -> backend.probe(validationCommand));
+    }
+
+    @PreDestroy
+    public void close() {
+        backends.forEach(backend -> backend.getPool().close());
+    }
+}
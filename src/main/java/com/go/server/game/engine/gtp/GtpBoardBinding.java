@@ -0,0 +1,101 @@
+package com.go.server.game.engine.gtp;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A GTP connection bound to a session, together with the moves its board currently holds.
+ */
+public class GtpBoardBinding {
+    private final String sessionId;
+    private final GtpConnection connection;
+    private final List<String> appliedMoves = new ArrayList<>();
+    private int boardSize;
+    private boolean synced = false;
+    private int historyStart;
+    private int pendingUndos;
+    private Instant lastUsed = Instant.now();
+
+    public GtpBoardBinding(final String sessionId, final GtpConnection connection) {
+        this.sessionId = sessionId;
+        this.connection = connection;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public GtpConnection getConnection() {
+        return connection;
+    }
+
+    public int getMoveCount() {
+        return appliedMoves.size();
+    }
+
+    /**
+     * Sets the number of moves the board holds as placed stones, which GTP undo cannot take back.
+     */
+    public void setHistoryStart(final int historyStart) {
+        this.historyStart = historyStart;
+    }
+
+    /**
+     * The moves taken back since the last sync, which the board still has to undo.
+     */
+    public int getPendingUndos() {
+        return pendingUndos;
+    }
+
+    /**
+     * Takes back the last moves, to be undone on the board with its next sync. Moves set up as stones
+     * cannot be undone, so the board is set up again instead.
+     */
+    public void undo(final int count) {
+        if (!synced || count > appliedMoves.size() - historyStart) {
+            invalidate();
+            return;
+        }
+
+        appliedMoves.subList(appliedMoves.size() - count, appliedMoves.size()).clear();
+        pendingUndos += count;
+    }
+
+    public Instant getLastUsed() {
+        return lastUsed;
+    }
+
+    /**
+     * Whether the board holds a game already, as opposed to a connection still to be set up.
+     */
+    public boolean isSynced() {
+        return synced;
+    }
+
+    public boolean isPrefixOf(final int boardSize, final List<String> moves) {
+        return synced
+                && this.boardSize == boardSize
+                && appliedMoves.size() <= moves.size()
+                && appliedMoves.equals(moves.subList(0, appliedMoves.size()));
+    }
+
+    public void synced(final int boardSize, final List<String> moves) {
+        if (!isPrefixOf(boardSize, moves)) {
+            appliedMoves.clear();
+        }
+
+        appliedMoves.addAll(moves.subList(appliedMoves.size(), moves.size()));
+        this.boardSize = boardSize;
+        this.synced = true;
+        this.pendingUndos = 0;
+        this.lastUsed = Instant.now();
+    }
+
+    public void invalidate() {
+        synced = false;
+        historyStart = 0;
+        pendingUndos = 0;
+        appliedMoves.clear();
+    }
+}
@@ -0,0 +1,154 @@
+package com.go.server.game.engine.gtp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps GTP connections bound to active sessions, so their boards only need the new moves applied.
+ * A binding is checked out exclusively while in use; concurrent calls for the same session fall back
+ * to a fresh connection and a full replay. Bound boards that are not in use count against the budget
+ * of held connections of the {@link GtpBackendRouter}; the least recently used one makes room.
+ */
+@Component
+public class GtpBoardBindings {
+    private final Logger logger = LoggerFactory.getLogger(GtpBoardBindings.class);
+    private final Map<String, GtpBoardBinding> bindings = new ConcurrentHashMap<>();
+    private final GtpBackendRouter backendRouter;
+    private final int maxBindings;
+    private final Duration idleTimeout;
+
+    public GtpBoardBindings(final GtpBackendRouter backendRouter,
+                            @Value("${gnugo.session-affinity.max-bindings:8}") final int maxBindings,
+                            @Value("${gnugo.session-affinity.idle-timeout:120000}") final long idleTimeout) {
+        this.backendRouter = backendRouter;
+        this.maxBindings = maxBindings;
+        this.idleTimeout = Duration.ofMillis(idleTimeout);
+    }
+
+    public GtpBoardBinding checkout(final String sessionId) {
+        final var bound = remove(sessionId);
+        if (bound != null && !bound.getConnection().isUsable()) {
+            // The connection died while the board was idle, set the game up on another one
+            logger.debug("Dropping GTP board of session {} on a closed connection", sessionId);
+            backendRouter.release(bound.getConnection());
+        } else if (bound != null && !backendRouter.isAvailable(bound.getConnection())) {
+            // The backend holding this board was ejected, move the session over with a full replay
+            logger.debug("Dropping GTP board of session {} on an unavailable backend", sessionId);
+            backendRouter.release(bound.getConnection());
+        } else if (bound != null) {
+            return bound;
+        }
+        return new GtpBoardBinding(sessionId, backendRouter.borrow());
+    }
+
+    /**
+     * Checks out a board on a newly borrowed connection, dropping any board bound to the session.
+     */
+    public GtpBoardBinding checkoutFresh(final String sessionId) {
+        unbind(sessionId);
+        return new GtpBoardBinding(sessionId, backendRouter.borrow());
+    }
+
+    /**
+     * Binds a connection whose board is already set up for an empty game of the given size.
+     */
+    public void bind(final String sessionId, final GtpConnection connection, final int boardSize) {
+        final var binding = new GtpBoardBinding(sessionId, connection);
+        binding.synced(boardSize, List.of());
+        checkin(binding);
+    }
+
+    public void checkin(final GtpBoardBinding binding) {
+        if (!binding.getConnection().isUsable() || maxBindings < 1 || !hold()) {
+            backendRouter.release(binding.getConnection());
+            return;
+        }
+
+        final var previous = bindings.put(binding.getSessionId(), binding);
+        if (previous != null) {
+            backendRouter.unhold();
+        }
+        if (previous != null && previous != binding) {
+            // A concurrent call for the same session finished first, keep the most recent board
+            backendRouter.release(previous.getConnection());
+        }
+
+        while (bindings.size() > maxBindings) {
+            bindings.values()
+                    .stream()
+                    .min(Comparator.comparing(GtpBoardBinding::getLastUsed))
+                    .ifPresent(oldest -> unbind(oldest.getSessionId()));
+        }
+    }
+
+    /**
+     * Takes back the last moves of a bound board that is not in use. A board in use is replayed
+     * on its next call instead, as it no longer matches the session then.
+     */
+    public void undo(final String sessionId, final int count) {
+        bindings.computeIfPresent(sessionId, (id, binding) -> {
+            binding.undo(count);
+            return binding;
+        });
+    }
+
+    public void unbind(final String sessionId) {
+        Optional.ofNullable(remove(sessionId)).ifPresent(binding -> {
+            logger.debug("Releasing GTP board bound to session {}", sessionId);
+            backendRouter.release(binding.getConnection());
+        });
+    }
+
+    // Unbinds the least recently used boards until the budget has room, false once none are left
+    private boolean hold() {
+        while (!backendRouter.tryHold()) {
+            final var oldest = bindings.values()
+                    .stream()
+                    .min(Comparator.comparing(GtpBoardBinding::getLastUsed));
+            if (oldest.isEmpty()) {
+                return false;
+            }
+            unbind(oldest.get().getSessionId());
+        }
+        return true;
+    }
+
+    private GtpBoardBinding remove(final String sessionId) {
+        final var binding = bindings.remove(sessionId);
+        if (binding != null) {
+            backendRouter.unhold();
+        }
+        return binding;
+    }
+
+    public boolean isBound(final String sessionId) {
+        return bindings.containsKey(sessionId);
+    }
+
+    public int getBindingCount() {
+        return bindings.size();
+    }
+
+    @Scheduled(fixedDelayString = "${gnugo.pool.maintenance-interval:30000}")
+    public void evictIdleBindings() {
+        final var now = Instant.now();
+
+        bindings.values()
+                .stream()
+                .filter(binding -> Duration.between(binding.getLastUsed(), now).compareTo(idleTimeout) > 0)
+                .map(GtpBoardBinding::getSessionId)
+                .toList()
+                .forEach(this::unbind);
+    }
+}
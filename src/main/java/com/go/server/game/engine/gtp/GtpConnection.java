@@ -0,0 +1,338 @@
+package com.go.server.game.engine.gtp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A GTP connection on a non-blocking socket channel that is driven by a {@link GtpEventLoop}.
+ * Requests are queued per connection and answered through futures, which complete on the I/O
+ * thread. The read timeout of a request starts once the requests before it were answered, as the
+ * engine answers them one after another. Commands are encoded into a reusable direct buffer and responses are parsed from another
+ * one, so a call does not produce String garbage besides the response bodies.
+ */
+public class GtpConnection implements Closeable {
+    private static final int MAX_COMMAND_ID = 1_000_000_000;
+    private static final int BUFFER_SIZE = 4 * 1024;
+
+    private final Logger logger = LoggerFactory.getLogger(GtpConnection.class);
+    private final SocketChannel channel;
+    private final GtpEventLoop loop;
+    private final SelectionKey key;
+    private final int readTimeout;
+    private final GtpResponseReader reader;
+    private final Queue<Request> pending = new ArrayDeque<>();
+    private ByteBuffer writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Instant created = Instant.now();
+    private volatile Instant lastUsed = created;
+    private volatile boolean broken = false;
+    private volatile AtomicInteger inFlight;
+    private int nextId = 1;
+
+    GtpConnection(final SocketChannel channel, final GtpEventLoop loop, final int readTimeout) throws IOException {
+        this.channel = channel;
+        this.loop = loop;
+        this.readTimeout = readTimeout;
+        this.reader = new GtpResponseReader(ByteBuffer.allocateDirect(BUFFER_SIZE));
+        channel.configureBlocking(false);
+        this.key = loop.register(channel, this);
+    }
+
+    public static GtpConnection open(final String host, final int port, final GtpEventLoop loop,
+                                     final int connectTimeout, final int readTimeout) throws IOException {
+        final var channel = SocketChannel.open();
+        try {
+            channel.socket().connect(new InetSocketAddress(host, port), connectTimeout);
+            channel.socket().setTcpNoDelay(true);
+            return new GtpConnection(channel, loop, readTimeout);
+        } catch (IOException error) {
+            channel.close();
+            throw error;
+        }
+    }
+
+    /**
+     * Sends a single command without an id and returns the raw response, e.g. {@code "= 2"}.
+     */
+    public String send(final String command) throws IOException {
+        logger.debug("Sending GTP: {}", command);
+        final var response = await(submit(false, List.of(command))).get(0);
+        return response.isEmpty()
+                ? (response.isSuccess() ? "=" : "?")
+                : (response.isSuccess() ? "= " : "? ") + response.getBody();
+    }
+
+    /**
+     * Writes all commands with numeric ids in a single flush and waits for their responses, so a
+     * whole batch costs one network round trip. Failed commands are reported per response.
+     */
+    public List<GtpResponse> sendBatch(final List<String> commands) throws IOException {
+        return await(sendBatchAsync(commands));
+    }
+
+    /**
+     * Like {@link #sendBatch(List)}, but returns right after the commands are queued. The future
+     * completes on an I/O thread, so dependent stages must not block.
+     */
+    public CompletableFuture<List<GtpResponse>> sendBatchAsync(final List<String> commands) {
+        if (commands.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        logger.debug("Sending GTP batch of {} commands", commands.size());
+        return submit(true, commands);
+    }
+
+    private CompletableFuture<List<GtpResponse>> submit(final boolean numbered, final List<String> commands) {
+        final Request request;
+        final boolean waitForWritable;
+        synchronized (this) {
+            if (broken) {
+                return CompletableFuture.failedFuture(new IOException("GTP connection is closed"));
+            }
+            if (nextId > MAX_COMMAND_ID - commands.size()) {
+                nextId = 1;
+            }
+
+            request = new Request(numbered ? nextId : -1, commands);
+            for (final var command : commands) {
+                encode(numbered ? nextId++ : -1, command);
+            }
+            pending.add(request);
+            if (pending.size() == 1) {
+                startTimeout(request);
+            }
+            final var counter = inFlight;
+            if (counter != null) {
+                counter.incrementAndGet();
+                request.future.whenComplete((responses, error) -> counter.decrementAndGet());
+            }
+
+            try {
+                waitForWritable = !flush();
+            } catch (IOException error) {
+                fail(error);
+                return request.future;
+            }
+        }
+
+        if (waitForWritable) {
+            loop.interest(key, SelectionKey.OP_WRITE);
+        }
+        return request.future;
+    }
+
+    // Called with the lock held, once the request is the next to be answered
+    private void startTimeout(final Request request) {
+        if (readTimeout > 0) {
+            request.timeout = loop.schedule(() -> {
+                if (!request.future.isDone()) {
+                    fail(new SocketTimeoutException("GTP engine did not respond within " + readTimeout + "ms"));
+                }
+            }, readTimeout);
+        }
+    }
+
+    /**
+     * Waits for a future that depends on a request of this connection. Being interrupted discards
+     * the connection, as the response is still on its way.
+     */
+    public <T> T await(final CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+            final var interrupted = new InterruptedIOException("Interrupted while waiting for the GTP engine");
+            fail(interrupted);
+            throw interrupted;
+        } catch (ExecutionException error) {
+            if (error.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (error.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IOException(error.getCause());
+        }
+    }
+
+    private void encode(final int id, final String command) {
+        ensureCapacity(command.length() + 12);
+        if (id >= 0) {
+            putDigits(id);
+            writeBuffer.put((byte) ' ');
+        }
+        for (int i = 0; i < command.length(); i++) {
+            writeBuffer.put((byte) command.charAt(i));
+        }
+        writeBuffer.put((byte) '\n');
+    }
+
+    private void putDigits(final int value) {
+        var divisor = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            writeBuffer.put((byte) ('0' + value / divisor % 10));
+        }
+    }
+
+    private void ensureCapacity(final int bytes) {
+        if (writeBuffer.remaining() < bytes) {
+            final var grown = ByteBuffer.allocateDirect(Math.max(writeBuffer.capacity() * 2, writeBuffer.position() + bytes));
+            writeBuffer.flip();
+            grown.put(writeBuffer);
+            writeBuffer = grown;
+        }
+    }
+
+    /**
+     * Writes as much of the encoded commands as the socket takes right now.
+     *
+     * @return whether everything was written
+     */
+    private boolean flush() throws IOException {
+        writeBuffer.flip();
+        try {
+            channel.write(writeBuffer);
+            return !writeBuffer.hasRemaining();
+        } finally {
+            writeBuffer.compact();
+        }
+    }
+
+    synchronized void onWritable() throws IOException {
+        if (flush()) {
+            key.interestOpsAnd(~SelectionKey.OP_WRITE);
+        }
+    }
+
+    void onReadable() throws IOException {
+        if (reader.fill(channel) < 0) {
+            throw new EOFException("GTP connection closed while waiting for a response");
+        }
+
+        GtpResponse response;
+        while ((response = reader.poll()) != null) {
+            final Request completed;
+            synchronized (this) {
+                final var request = pending.peek();
+                if (request == null) {
+                    throw new IOException("Unexpected GTP response id " + response.getId() + " without a request");
+                }
+                completed = request.accept(response) ? pending.poll() : null;
+                if (completed != null && !pending.isEmpty()) {
+                    startTimeout(pending.peek());
+                }
+            }
+            if (completed != null) {
+                completed.cancelTimeout();
+                lastUsed = Instant.now();
+                completed.future.complete(Arrays.asList(completed.responses));
+            }
+        }
+    }
+
+    /**
+     * Discards the connection and fails every request that is still waiting for a response.
+     */
+    void fail(final IOException error) {
+        final List<Request> failed;
+        synchronized (this) {
+            broken = true;
+            failed = new ArrayList<>(pending);
+            pending.clear();
+        }
+        if (!failed.isEmpty()) {
+            logger.debug("GTP connection failed with {} pending requests: {}", failed.size(), error.getMessage());
+        }
+        close();
+        failed.forEach(request -> {
+            request.cancelTimeout();
+            request.future.completeExceptionally(error);
+        });
+    }
+
+    /**
+     * Counts every request from now on in the counter while it waits for its responses.
+     */
+    void countRequestsIn(final AtomicInteger counter) {
+        this.inFlight = counter;
+    }
+
+    public boolean isUsable() {
+        return !broken && channel.isOpen();
+    }
+
+    public Instant getCreated() {
+        return created;
+    }
+
+    public Instant getLastUsed() {
+        return lastUsed;
+    }
+
+    @Override
+    public void close() {
+        broken = true;
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException error) {
+            logger.debug("Error during closing GTP connection: {}", error.getMessage());
+        }
+    }
+
+    private final class Request {
+        private final int firstId;
+        private final List<String> commands;
+        private final GtpResponse[] responses;
+        private final CompletableFuture<List<GtpResponse>> future = new CompletableFuture<>();
+        private volatile ScheduledFuture<?> timeout;
+        private int received;
+
+        private Request(final int firstId, final List<String> commands) {
+            this.firstId = firstId;
+            this.commands = commands;
+            this.responses = new GtpResponse[commands.size()];
+        }
+
+        /**
+         * @return whether the request has all of its responses
+         */
+        private boolean accept(final GtpResponse response) throws IOException {
+            final var index = firstId < 0 ? received : response.getId() - firstId;
+            if (index < 0 || index >= responses.length || responses[index] != null) {
+                throw new IOException("Unexpected GTP response id " + response.getId() + " in batch starting at " + firstId);
+            }
+            responses[index] = response.forCommand(commands.get(index));
+            if (!response.isSuccess()) {
+                logger.debug("GTP command failed: {} -> {}", commands.get(index), response.getBody());
+            }
+            return ++received == responses.length;
+        }
+
+        private void cancelTimeout() {
+            final var scheduled = timeout;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+    }
+}
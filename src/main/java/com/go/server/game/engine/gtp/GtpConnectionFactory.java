@@ -0,0 +1,8 @@
+package com.go.server.game.engine.gtp;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface GtpConnectionFactory {
+    GtpConnection connect() throws IOException;
+}
@@ -0,0 +1,198 @@
+package com.go.server.game.engine.gtp;
+
+import com.go.server.game.engine.exception.EngineUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of long-lived GTP connections to one backend. Every connection is backed by its own
+ * gnugo process, so reusing them avoids a TCP handshake and a process spawn per call.
+ */
+public class GtpConnectionPool {
+    private static final String GTP_RESPONSE_PREFIX = "=";
+
+    private final Logger logger = LoggerFactory.getLogger(GtpConnectionPool.class);
+    private final GtpConnectionFactory connectionFactory;
+    private final int minIdle;
+    private final int maxSize;
+    private final Duration maxIdleTime;
+    private final Duration borrowTimeout;
+    private final Duration validationInterval;
+    private final String validationCommand;
+    private final Semaphore permits;
+    private final Deque<GtpConnection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    public GtpConnectionPool(final GtpConnectionFactory connectionFactory,
+                             final int minIdle,
+                             final int maxSize,
+                             final Duration maxIdleTime,
+                             final Duration borrowTimeout,
+                             final Duration validationInterval,
+                             final String validationCommand) {
+        if (maxSize < 1 || minIdle < 0 || minIdle > maxSize) {
+            throw new IllegalArgumentException("Invalid GTP pool size: min-idle " + minIdle + ", max-size " + maxSize);
+        }
+
+        this.connectionFactory = connectionFactory;
+        this.minIdle = minIdle;
+        this.maxSize = maxSize;
+        this.maxIdleTime = maxIdleTime;
+        this.borrowTimeout = borrowTimeout;
+        this.validationInterval = validationInterval;
+        this.validationCommand = validationCommand;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    public GtpConnection borrow() {
+        if (closed) {
+            throw new EngineUnavailableException("GTP connection pool is closed");
+        }
+
+        acquirePermit();
+
+        try {
+            GtpConnection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (isValid(connection)) {
+                    return connection;
+                }
+                destroy(connection);
+            }
+            return createConnection();
+        } catch (RuntimeException error) {
+            permits.release();
+            throw error;
+        }
+    }
+
+    public void release(final GtpConnection connection) {
+        if (connection.isUsable() && !closed) {
+            idle.offerFirst(connection);
+        } else {
+            destroy(connection);
+        }
+        permits.release();
+    }
+
+    public void maintain() {
+        if (closed) return;
+
+        evictIdleConnections();
+        fillIdleConnections();
+        logger.debug("GTP pool maintained. open: {}, idle: {}, borrowed: {}", getOpenCount(), getIdleCount(), getBorrowedCount());
+    }
+
+    public void close() {
+        closed = true;
+
+        GtpConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            destroy(connection);
+        }
+    }
+
+    public int getOpenCount() {
+        return openConnections.get();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getBorrowedCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private void acquirePermit() {
+        try {
+            if (!permits.tryAcquire(borrowTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new EngineUnavailableException("No GTP connection available within " + borrowTimeout.toMillis() + "ms");
+            }
+        } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+            throw new EngineUnavailableException("Interrupted while waiting for a GTP connection", error);
+        }
+    }
+
+    private void evictIdleConnections() {
+        final var now = Instant.now();
+
+        for (GtpConnection connection : new ArrayList<>(idle)) {
+            final var idleTime = Duration.between(connection.getLastUsed(), now);
+            final boolean expired = idleTime.compareTo(maxIdleTime) > 0 && idle.size() > minIdle;
+            final boolean needsValidation = idleTime.compareTo(validationInterval) > 0;
+
+            if ((!expired && !needsValidation) || !idle.remove(connection)) {
+                continue;
+            }
+
+            if (!expired && validate(connection)) {
+                idle.offerLast(connection);
+            } else {
+                destroy(connection);
+            }
+        }
+    }
+
+    private void fillIdleConnections() {
+        while (idle.size() < minIdle && openConnections.get() < maxSize && permits.tryAcquire()) {
+            try {
+                idle.offerLast(createConnection());
+            } catch (EngineUnavailableException error) {
+                logger.warn("Could not pre-open GTP connection: {}", error.getMessage());
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private boolean isValid(final GtpConnection connection) {
+        if (!connection.isUsable()) {
+            return false;
+        }
+
+        final var idleTime = Duration.between(connection.getLastUsed(), Instant.now());
+        return idleTime.compareTo(validationInterval) <= 0 || validate(connection);
+    }
+
+    private boolean validate(final GtpConnection connection) {
+        try {
+            return connection.send(validationCommand).startsWith(GTP_RESPONSE_PREFIX);
+        } catch (IOException error) {
+            logger.info("GTP connection failed validation: {}", error.getMessage());
+            return false;
+        }
+    }
+
+    private GtpConnection createConnection() {
+        try {
+            final var connection = connectionFactory.connect();
+            openConnections.incrementAndGet();
+            return connection;
+        } catch (IOException error) {
+            throw new EngineUnavailableException("Could not connect to GTP engine", error);
+        }
+    }
+
+    private void destroy(final GtpConnection connection) {
+        connection.close();
+        openConnections.decrementAndGet();
+    }
+}
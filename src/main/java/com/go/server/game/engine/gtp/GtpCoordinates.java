@@ -0,0 +1,51 @@
+package com.go.server.game.engine.gtp;
+
+import com.go.server.game.model.DeviceMove;
+
+import java.util.Optional;
+
+public final class GtpCoordinates {
+    public static final String PASS = "PASS";
+    private static final char SKIPPED_COLUMN = 'I';
+
+    private GtpCoordinates() {
+        // Prevent instantiation
+    }
+
+    public static String toGtp(final int x, final int y, final int size) {
+        char initialCol = (char) ('A' + x);
+        char col = initialCol >= SKIPPED_COLUMN ? (char) (initialCol + 1) : initialCol;
+        int row = size - y;
+        return String.valueOf(col) + row;
+    }
+
+    public static String toGtp(final DeviceMove move, final int size) {
+        return move.isPass() ? PASS : toGtp(move.getX(), move.getY(), size);
+    }
+
+    public static boolean isPass(final String vertex) {
+        return PASS.equalsIgnoreCase(vertex);
+    }
+
+    public static int toX(final String vertex) {
+        char colChar = Character.toUpperCase(vertex.charAt(0));
+        int xShift = colChar > SKIPPED_COLUMN ? 1 : 0;
+        return (colChar - 'A') - xShift;
+    }
+
+    public static int toY(final String vertex, final int size) {
+        return size - Integer.parseInt(vertex.substring(1));
+    }
+
+    public static Optional<DeviceMove> toDeviceMove(final String vertex, final int size) {
+        if (isPass(vertex)) return Optional.of(DeviceMove.pass());
+        if (vertex.length() < 2) return Optional.empty();
+
+        try {
+            return Optional.of(DeviceMove.at(toX(vertex), toY(vertex, size)));
+        } catch (NumberFormatException e) {
+            // e.g. "resign"
+            return Optional.empty();
+        }
+    }
+}
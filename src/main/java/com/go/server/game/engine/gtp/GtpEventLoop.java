@@ -0,0 +1,159 @@
+package com.go.server.game.engine.gtp;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small set of I/O threads, each with one selector, that drive the reads and writes of all GTP
+ * connections. Waiting for an engine response does not hold a thread; callers get a future.
+ * Response timeouts run on a timer thread of their own.
+ */
+@Component
+public class GtpEventLoop implements Closeable {
+    private final Logger logger = LoggerFactory.getLogger(GtpEventLoop.class);
+    private final List<IoThread> threads = new ArrayList<>();
+    private final AtomicInteger nextThread = new AtomicInteger();
+    private final ScheduledThreadPoolExecutor timeouts = new ScheduledThreadPoolExecutor(1, runnable -> {
+        final var thread = new Thread(runnable, "gtp-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public GtpEventLoop(@Value("${gnugo.io.threads:2}") final int threadCount) throws IOException {
+        // Answered requests cancel their timeout, which should not stay queued until it expires
+        timeouts.setRemoveOnCancelPolicy(true);
+        for (int i = 1; i <= threadCount; i++) {
+            final var thread = new IoThread(Selector.open(), "gtp-io-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+    }
+
+    /**
+     * Registers the channel with the selector of one of the I/O threads, which are assigned in turn.
+     */
+    SelectionKey register(final SocketChannel channel, final GtpConnection connection) throws IOException {
+        final var thread = threads.get(Math.floorMod(nextThread.getAndIncrement(), threads.size()));
+        final var registered = new CompletableFuture<SelectionKey>();
+        thread.execute(() -> {
+            try {
+                registered.complete(channel.register(thread.selector, SelectionKey.OP_READ, connection));
+            } catch (IOException error) {
+                registered.completeExceptionally(error);
+            }
+        });
+
+        try {
+            return registered.join();
+        } catch (RuntimeException error) {
+            if (error.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw error;
+        }
+    }
+
+    /**
+     * Adds an operation to the interest set of the key and wakes its selector up.
+     */
+    void interest(final SelectionKey key, final int operation) {
+        key.interestOpsOr(operation);
+        key.selector().wakeup();
+    }
+
+    ScheduledFuture<?> schedule(final Runnable task, final long delayMillis) {
+        return timeouts.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    int getScheduledTimeouts() {
+        return timeouts.getQueue().size();
+    }
+
+    @Override
+    @PreDestroy
+    public void close() {
+        timeouts.shutdownNow();
+        threads.forEach(IoThread::shutdown);
+    }
+
+    private final class IoThread extends Thread {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private volatile boolean running = true;
+
+        private IoThread(final Selector selector, final String name) {
+            super(name);
+            this.selector = selector;
+            setDaemon(true);
+        }
+
+        private void execute(final Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        private void shutdown() {
+            running = false;
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    selector.select();
+                } catch (IOException error) {
+                    logger.error("GTP selector failed", error);
+                    break;
+                }
+
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+
+                for (final var key : selector.selectedKeys()) {
+                    final var connection = (GtpConnection) key.attachment();
+                    try {
+                        if (key.isValid() && key.isWritable()) {
+                            connection.onWritable();
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            connection.onReadable();
+                        }
+                    } catch (IOException | UncheckedIOException | CancelledKeyException error) {
+                        connection.fail(error instanceof IOException io ? io : new IOException(error));
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+
+            try {
+                selector.keys().forEach(key -> ((GtpConnection) key.attachment()).close());
+                selector.close();
+            } catch (IOException error) {
+                logger.debug("Error during closing GTP selector: {}", error.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.go.server.game.engine.gtp;
+
+import java.nio.charset.StandardCharsets;
+
+public class GtpResponse {
+    private static final String SUCCESS_PREFIX = "=";
+    private static final String FAILURE_PREFIX = "?";
+    private static final byte SKIPPED_COLUMN = 'I';
+
+    private final int id;
+    private final String command;
+    private final boolean success;
+    private final byte[] body;
+    private String text;
+
+    public GtpResponse(final int id, final String command, final boolean success, final String body) {
+        this(id, command, success, body.getBytes(StandardCharsets.US_ASCII));
+        this.text = body;
+    }
+
+    GtpResponse(final int id, final String command, final boolean success, final byte[] body) {
+        this.id = id;
+        this.command = command;
+        this.success = success;
+        this.body = body;
+    }
+
+    GtpResponse forCommand(final String command) {
+        final var response = new GtpResponse(id, command, success, body);
+        response.text = text;
+        return response;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public String getBody() {
+        if (text == null) {
+            text = new String(body, StandardCharsets.US_ASCII);
+        }
+        return text;
+    }
+
+    public boolean isEmpty() {
+        return body.length == 0;
+    }
+
+    /**
+     * Decodes a whitespace separated vertex list, like the body of {@code list_stones}, without
+     * building strings. Passes and anything else that is not a vertex on the board are skipped.
+     */
+    public void forEachVertex(final int size, final VertexConsumer consumer) {
+        var i = 0;
+        while (i < body.length) {
+            while (i < body.length && GtpResponseReader.isWhitespace(body[i])) i++;
+            if (i == body.length) {
+                return;
+            }
+
+            final var column = (byte) (body[i++] & ~0x20);
+            var row = 0;
+            var digits = 0;
+            while (i < body.length && body[i] >= '0' && body[i] <= '9') {
+                row = row * 10 + (body[i++] - '0');
+                digits++;
+            }
+            final var endOfToken = i == body.length || GtpResponseReader.isWhitespace(body[i]);
+            while (i < body.length && !GtpResponseReader.isWhitespace(body[i])) i++;
+
+            if (!endOfToken || digits == 0 || column < 'A' || column > 'Z' || column == SKIPPED_COLUMN) {
+                continue;
+            }
+            final var x = column - 'A' - (column > SKIPPED_COLUMN ? 1 : 0);
+            final var y = size - row;
+            if (x < size && y >= 0 && y < size) {
+                consumer.accept(x, y);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return (success ? SUCCESS_PREFIX : FAILURE_PREFIX) + id + " " + getBody();
+    }
+
+    @FunctionalInterface
+    public interface VertexConsumer {
+        void accept(int x, int y);
+    }
+}
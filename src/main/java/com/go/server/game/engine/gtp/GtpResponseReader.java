@@ -0,0 +1,170 @@
+package com.go.server.game.engine.gtp;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Parses GTP responses straight from a byte buffer. The buffer and the body scratch space are
+ * reused across responses; the only allocation per response is the copy of its body.
+ */
+final class GtpResponseReader {
+    private static final byte SUCCESS = '=';
+    private static final byte FAILURE = '?';
+    private static final byte NEWLINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    private static final Source EXHAUSTED = buffer -> {
+        throw new IllegalStateException("A complete GTP response was expected in the buffer");
+    };
+
+    private ByteBuffer buffer;
+    private byte[] body = new byte[256];
+
+    /**
+     * Supplies more bytes to the reader's buffer, which is in write mode while filling.
+     */
+    @FunctionalInterface
+    interface Source {
+        /**
+         * @return the number of bytes read, or -1 once the stream ended
+         */
+        int fill(ByteBuffer buffer) throws IOException;
+    }
+
+    GtpResponseReader(final ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.buffer.flip();
+    }
+
+    /**
+     * Drops unread bytes, e.g. leftovers of a response whose connection is being discarded.
+     */
+    void clear() {
+        buffer.clear().flip();
+    }
+
+    /**
+     * Reads whatever the channel has available without blocking, growing the buffer when a single
+     * response does not fit.
+     *
+     * @return the number of bytes read, or -1 once the stream ended
+     */
+    int fill(final ReadableByteChannel channel) throws IOException {
+        buffer.compact();
+        if (!buffer.hasRemaining()) {
+            final var grown = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+        try {
+            return channel.read(buffer);
+        } finally {
+            buffer.flip();
+        }
+    }
+
+    /**
+     * Parses the next response if the buffer already holds all of it, otherwise returns null and
+     * leaves the buffer untouched.
+     */
+    GtpResponse poll() throws IOException {
+        return hasResponse() ? read(EXHAUSTED) : null;
+    }
+
+    private boolean hasResponse() {
+        final var limit = buffer.limit();
+        var i = buffer.position();
+
+        // Same framing as read(): skip noise lines, then look for the empty line after the status
+        while (i < limit && buffer.get(i) != SUCCESS && buffer.get(i) != FAILURE) {
+            while (i < limit && buffer.get(i) != NEWLINE) i++;
+            i++;
+        }
+        var lineStart = false;
+        for (i++; i < limit; i++) {
+            final var current = buffer.get(i);
+            if (current == NEWLINE) {
+                if (lineStart) {
+                    return true;
+                }
+                lineStart = true;
+            } else if (current != CARRIAGE_RETURN) {
+                lineStart = false;
+            }
+        }
+        return false;
+    }
+
+    GtpResponse read(final Source source) throws IOException {
+        // Skip anything up to the next status line, e.g. blank lines or noise from the engine
+        byte status;
+        while (true) {
+            status = next(source);
+            if (status == SUCCESS || status == FAILURE) {
+                break;
+            }
+            skipLine(source);
+        }
+
+        var id = -1;
+        var current = next(source);
+        while (current >= '0' && current <= '9') {
+            id = Math.max(id, 0) * 10 + (current - '0');
+            current = next(source);
+        }
+
+        // The body ends with an empty line; the status line's text and following lines are kept
+        var length = 0;
+        var lineStart = false;
+        while (true) {
+            if (current == CARRIAGE_RETURN) {
+                current = next(source);
+                continue;
+            }
+            if (current == NEWLINE) {
+                if (lineStart) {
+                    break;
+                }
+                lineStart = true;
+            } else {
+                lineStart = false;
+            }
+            if (length == body.length) {
+                body = Arrays.copyOf(body, body.length * 2);
+            }
+            body[length++] = current;
+            current = next(source);
+        }
+
+        var start = 0;
+        while (start < length && isWhitespace(body[start])) start++;
+        while (length > start && isWhitespace(body[length - 1])) length--;
+        return new GtpResponse(id, null, status == SUCCESS, Arrays.copyOfRange(body, start, length));
+    }
+
+    private void skipLine(final Source source) throws IOException {
+        while (next(source) != NEWLINE) {
+            // Skipped
+        }
+    }
+
+    private byte next(final Source source) throws IOException {
+        while (!buffer.hasRemaining()) {
+            buffer.compact();
+            final var read = source.fill(buffer);
+            buffer.flip();
+            if (read < 0) {
+                throw new EOFException("GTP connection closed while waiting for a response");
+            }
+        }
+        return buffer.get();
+    }
+
+    static boolean isWhitespace(final byte value) {
+        return value == ' ' || value == '\t' || value == NEWLINE || value == CARRIAGE_RETURN;
+    }
+}
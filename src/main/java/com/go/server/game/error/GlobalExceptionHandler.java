@@ -1,7 +1,9 @@
 package com.go.server.game.error;
 
+import com.go.server.game.message.handler.MessageHandler;
 import com.go.server.game.model.output.ErrorDto;
 import com.go.server.game.session.exception.InvalidMoveException;
+import com.go.server.game.session.exception.SessionBusyException;
 import com.go.server.game.session.exception.SessionNotFoundException;
 import com.go.server.game.session.exception.SessionFullException;
 import com.go.server.user.exception.InvalidUserIdException;
@@ -19,10 +21,47 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
     private final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+    private final MessageHandler messageHandler;
+
+    public GlobalExceptionHandler(final MessageHandler messageHandler) {
+        this.messageHandler = messageHandler;
+    }
+
+    /**
+     * Reports a failure of asynchronous work to the user, as the message exception handlers
+     * only see exceptions thrown on the inbound thread.
+     */
+    public void handleAsyncException(final String user, final Throwable error) {
+        messageHandler.sendToUser(user, ERROR_QUEUE, toErrorDto(unwrap(error)));
+    }
+
+    private ErrorDto toErrorDto(Throwable e) {
+        if (e instanceof SessionFullException error) return handleSessionFullException(error);
+        if (e instanceof InvalidUserIdException error) return handleInvalidUserIdException(error);
+        if (e instanceof UserNotFoundException error) return handleUserNotFoundException(error);
+        if (e instanceof SessionNotFoundException error) return handleSessionNotFoundException(error);
+        if (e instanceof SessionBusyException error) return handleSessionBusyException(error);
+        if (e instanceof InvalidMoveException error) return handleInvalidMoveException(error);
+        if (e instanceof TimeoutException error) return handleTimeoutException(error);
+        if (e instanceof IllegalArgumentException error) return handleIllegalArgumentException(error);
+        if (e instanceof Exception error) return handleGlobalException(error);
+        return handleGlobalException(new RuntimeException(e));
+    }
+
+    private Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
 
     @MessageExceptionHandler(SessionFullException.class)
     @SendToUser(ERROR_QUEUE)
@@ -52,6 +91,13 @@ public class GlobalExceptionHandler {
         return new ErrorDto(SESSION_NOT_FOUND, e.getMessage());
     }
 
+    @MessageExceptionHandler(SessionBusyException.class)
+    @SendToUser(ERROR_QUEUE)
+    public ErrorDto handleSessionBusyException(SessionBusyException e) {
+        logger.warn("Session Busy: {}", e.getMessage());
+        return new ErrorDto(SESSION_BUSY, e.getMessage());
+    }
+
     @MessageExceptionHandler(InvalidMoveException.class)
     @SendToUser(ERROR_QUEUE)
     public ErrorDto handleInvalidMoveException(InvalidMoveException e) {
@@ -59,6 +105,13 @@ public class GlobalExceptionHandler {
         return new ErrorDto(INVALID_MOVE, e.getMessage());
     }
 
+    @MessageExceptionHandler(TimeoutException.class)
+    @SendToUser(ERROR_QUEUE)
+    public ErrorDto handleTimeoutException(TimeoutException e) {
+        logger.warn("Engine Timeout: {}", e.getMessage());
+        return new ErrorDto(ENGINE_TIMEOUT, "The game engine did not answer in time.");
+    }
+
     @MessageExceptionHandler(MethodArgumentNotValidException.class)
     @SendToUser(ERROR_QUEUE)
     public ErrorDto handleValidationException(MethodArgumentNotValidException e) {
@@ -19,4 +19,9 @@ public class MessageHandler {
         logger.info("Message send to {}, with payload: {}", message.getDestination(), message.getPayload());
         this.messagingTemplate.convertAndSend(message.getDestination(), message.getPayload());
     }
+
+    public void sendToUser(final String user, final String destination, final Object payload) {
+        logger.info("Message send to user {} at {}, with payload: {}", user, destination, payload);
+        this.messagingTemplate.convertAndSendToUser(user, destination, payload);
+    }
 }
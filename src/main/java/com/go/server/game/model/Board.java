@@ -0,0 +1,383 @@
+package com.go.server.game.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Go board backed by one bitboard per color. Stones are grouped with a union-find structure whose
+ * roots track pseudo-liberties (empty neighbors counted once per adjacent stone), which is zero
+ * exactly when a group has no liberties. Checking and playing a move does not allocate.
+ * The Zobrist hash of the stones on the board is maintained incrementally.
+ */
+public class Board {
+    public static final int MIN_SIZE = 2;
+    public static final int MAX_SIZE = 19;
+    private static final int NO_POINT = -1;
+    private static final int NEIGHBOR_COUNT = 4;
+    private static final int[][] NEIGHBOR_TABLES = new int[MAX_SIZE + 1][];
+
+    static {
+        for (int size = MIN_SIZE; size <= MAX_SIZE; size++) {
+            NEIGHBOR_TABLES[size] = neighborTable(size);
+        }
+    }
+
+    private final int size;
+    private final int[] neighbors;
+    private final long[] black;
+    private final long[] white;
+    private final int[] parent;
+    private final int[] next;
+    private final int[] stones;
+    private final int[] liberties;
+    private int koPoint = NO_POINT;
+    private long positionHash = 0L;
+
+    public Board(int size) {
+        if (size < MIN_SIZE || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Unsupported board size: " + size);
+        }
+
+        int area = size * size;
+        this.size = size;
+        this.neighbors = NEIGHBOR_TABLES[size];
+        this.black = new long[(area + Long.SIZE - 1) / Long.SIZE];
+        this.white = new long[black.length];
+        this.parent = new int[area];
+        this.next = new int[area];
+        this.stones = new int[area];
+        this.liberties = new int[area];
+    }
+
+    private Board(Board other) {
+        this.size = other.size;
+        this.neighbors = other.neighbors;
+        this.black = other.black.clone();
+        this.white = other.white.clone();
+        this.parent = other.parent.clone();
+        this.next = other.next.clone();
+        this.stones = other.stones.clone();
+        this.liberties = other.liberties.clone();
+        this.koPoint = other.koPoint;
+        this.positionHash = other.positionHash;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * The shared table of the four neighbors of every point, {@code -1} for those off the board.
+     * Must not be modified.
+     */
+    static int[] neighbors(int size) {
+        return NEIGHBOR_TABLES[size];
+    }
+
+    public StoneState get(int x, int y) {
+        int point = index(x, y);
+        if (isSet(black, point)) return StoneState.Black;
+        if (isSet(white, point)) return StoneState.White;
+        return StoneState.Empty;
+    }
+
+    public long getPositionHash() {
+        return positionHash;
+    }
+
+    /**
+     * Returns the position hash the board would have after the given legal move, without playing it.
+     */
+    public long hashAfter(int x, int y, StoneState color) {
+        int point = index(x, y);
+        long hash = positionHash ^ ZobristKeys.stone(size, color, point);
+        StoneState opponentColor = opponent(color);
+        long[] opponent = bitboard(opponentColor);
+
+        int base = point * NEIGHBOR_COUNT;
+        for (int i = base; i < base + NEIGHBOR_COUNT; i++) {
+            int neighbor = neighbors[i];
+            if (neighbor == NO_POINT || !isSet(opponent, neighbor)) continue;
+
+            int root = find(neighbor);
+            if (liberties[root] != touches(point, root) || isCountedBefore(point, i, root)) continue;
+
+            int member = root;
+            do {
+                hash ^= ZobristKeys.stone(size, opponentColor, member);
+                member = next[member];
+            } while (member != root);
+        }
+
+        return hash;
+    }
+
+    public int countStones(StoneState color) {
+        long[] bits = bitboard(color);
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public MoveLegality check(int x, int y, StoneState color) {
+        if (x < 0 || y < 0 || x >= size || y >= size) return MoveLegality.OUT_OF_BOUNDS;
+
+        int point = index(x, y);
+        if (!isEmpty(point)) return MoveLegality.OCCUPIED;
+        if (point == koPoint) return MoveLegality.KO;
+
+        long[] own = bitboard(color);
+        int base = point * NEIGHBOR_COUNT;
+        for (int i = base; i < base + NEIGHBOR_COUNT; i++) {
+            int neighbor = neighbors[i];
+            if (neighbor == NO_POINT) continue;
+            if (isEmpty(neighbor)) return MoveLegality.LEGAL;
+
+            int root = find(neighbor);
+            int remaining = liberties[root] - touches(point, root);
+            boolean friendly = isSet(own, neighbor);
+            if (friendly && remaining > 0) return MoveLegality.LEGAL;
+            if (!friendly && remaining == 0) return MoveLegality.LEGAL;
+        }
+
+        return MoveLegality.SUICIDE;
+    }
+
+    /**
+     * Places a stone which must have been checked to be legal and returns the number of captured stones.
+     */
+    public int play(int x, int y, StoneState color) {
+        MoveLegality legality = check(x, y, color);
+        if (!legality.isLegal()) {
+            throw new IllegalStateException(legality.getDescription());
+        }
+
+        int point = index(x, y);
+        addStone(point, color);
+
+        StoneState opponentColor = opponent(color);
+        long[] opponent = bitboard(opponentColor);
+        int captured = 0;
+        int capturedPoint = NO_POINT;
+        int base = point * NEIGHBOR_COUNT;
+        for (int i = base; i < base + NEIGHBOR_COUNT; i++) {
+            int neighbor = neighbors[i];
+            if (neighbor == NO_POINT || !isSet(opponent, neighbor)) continue;
+
+            int root = find(neighbor);
+            if (liberties[root] == 0) {
+                captured += removeGroup(root, opponentColor);
+                capturedPoint = neighbor;
+            }
+        }
+
+        int root = find(point);
+        koPoint = captured == 1 && stones[root] == 1 && liberties[root] == 1 ? capturedPoint : NO_POINT;
+        return captured;
+    }
+
+    /**
+     * Places a stone without applying the rules, e.g. to set up a position read from another engine.
+     */
+    public void place(int x, int y, StoneState color) {
+        int point = index(x, y);
+        if (!isEmpty(point)) {
+            throw new IllegalStateException(MoveLegality.OCCUPIED.getDescription());
+        }
+        addStone(point, color);
+        koPoint = NO_POINT;
+    }
+
+    public void pass() {
+        koPoint = NO_POINT;
+    }
+
+    public boolean hasKoPoint() {
+        return koPoint != NO_POINT;
+    }
+
+    public Board copy() {
+        return new Board(this);
+    }
+
+    public List<List<Intersection>> toIntersections() {
+        List<List<Intersection>> rows = new ArrayList<>(size);
+        for (int y = 0; y < size; y++) {
+            List<Intersection> row = new ArrayList<>(size);
+            for (int x = 0; x < size; x++) {
+                row.add(new Intersection(new Location(x, y), get(x, y)));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Two boards are equal when they hold the same stones, regardless of how the position was reached.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof Board board)) return false;
+        return size == board.size && Arrays.equals(black, board.black) && Arrays.equals(white, board.white);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * size + Arrays.hashCode(black)) + Arrays.hashCode(white);
+    }
+
+    private void addStone(int point, StoneState color) {
+        long[] own = bitboard(color);
+        set(own, point);
+        positionHash ^= ZobristKeys.stone(size, color, point);
+        parent[point] = point;
+        next[point] = point;
+        stones[point] = 1;
+        liberties[point] = 0;
+
+        int base = point * NEIGHBOR_COUNT;
+        for (int i = base; i < base + NEIGHBOR_COUNT; i++) {
+            int neighbor = neighbors[i];
+            if (neighbor == NO_POINT) continue;
+
+            if (isEmpty(neighbor)) {
+                liberties[point]++;
+            } else {
+                liberties[find(neighbor)]--;
+            }
+        }
+
+        for (int i = base; i < base + NEIGHBOR_COUNT; i++) {
+            int neighbor = neighbors[i];
+            if (neighbor != NO_POINT && isSet(own, neighbor)) {
+                union(point, neighbor);
+            }
+        }
+    }
+
+    private int removeGroup(int root, StoneState color) {
+        long[] bits = bitboard(color);
+        int point = root;
+        do {
+            clear(bits, point);
+            positionHash ^= ZobristKeys.stone(size, color, point);
+            point = next[point];
+        } while (point != root);
+
+        int removed = 0;
+        do {
+            int base = point * NEIGHBOR_COUNT;
+            for (int i = base; i < base + NEIGHBOR_COUNT; i++) {
+                int neighbor = neighbors[i];
+                if (neighbor != NO_POINT && !isEmpty(neighbor)) {
+                    liberties[find(neighbor)]++;
+                }
+            }
+            removed++;
+            point = next[point];
+        } while (point != root);
+
+        return removed;
+    }
+
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) return;
+
+        if (stones[rootA] < stones[rootB]) {
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+
+        parent[rootB] = rootA;
+        stones[rootA] += stones[rootB];
+        liberties[rootA] += liberties[rootB];
+
+        // Splice the circular member lists
+        int swap = next[rootA];
+        next[rootA] = next[rootB];
+        next[rootB] = swap;
+    }
+
+    private int find(int point) {
+        while (parent[point] != point) {
+            parent[point] = parent[parent[point]];
+            point = parent[point];
+        }
+        return point;
+    }
+
+    private int touches(int point, int root) {
+        int count = 0;
+        int base = point * NEIGHBOR_COUNT;
+        for (int i = base; i < base + NEIGHBOR_COUNT; i++) {
+            int neighbor = neighbors[i];
+            if (neighbor != NO_POINT && !isEmpty(neighbor) && find(neighbor) == root) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean isCountedBefore(int point, int neighborIndex, int root) {
+        for (int i = point * NEIGHBOR_COUNT; i < neighborIndex; i++) {
+            int neighbor = neighbors[i];
+            if (neighbor != NO_POINT && !isEmpty(neighbor) && find(neighbor) == root) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isEmpty(int point) {
+        return !isSet(black, point) && !isSet(white, point);
+    }
+
+    private long[] bitboard(StoneState color) {
+        return switch (color) {
+            case Black -> black;
+            case White -> white;
+            case Empty -> throw new IllegalArgumentException("No bitboard for empty intersections");
+        };
+    }
+
+    private int index(int x, int y) {
+        return y * size + x;
+    }
+
+    private static boolean isSet(long[] bits, int point) {
+        return (bits[point >>> 6] & (1L << point)) != 0;
+    }
+
+    private static void set(long[] bits, int point) {
+        bits[point >>> 6] |= 1L << point;
+    }
+
+    private static void clear(long[] bits, int point) {
+        bits[point >>> 6] &= ~(1L << point);
+    }
+
+    private static StoneState opponent(StoneState color) {
+        return color == StoneState.Black ? StoneState.White : StoneState.Black;
+    }
+
+    private static int[] neighborTable(int size) {
+        int[] table = new int[size * size * NEIGHBOR_COUNT];
+        for (int point = 0; point < size * size; point++) {
+            int x = point % size;
+            int y = point / size;
+            int base = point * NEIGHBOR_COUNT;
+            table[base] = x > 0 ? point - 1 : NO_POINT;
+            table[base + 1] = x < size - 1 ? point + 1 : NO_POINT;
+            table[base + 2] = y > 0 ? point - size : NO_POINT;
+            table[base + 3] = y < size - 1 ? point + size : NO_POINT;
+        }
+        return table;
+    }
+}
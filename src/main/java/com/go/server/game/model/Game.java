@@ -5,6 +5,7 @@ import com.go.server.game.model.dto.BoardStateDto;
 import com.go.server.game.model.dto.IntersectionRowDto;
 import com.go.server.game.model.dto.IntersectionDto;
 import com.go.server.game.model.dto.SettingsDto;
+import com.go.server.game.session.model.Colors;
 import com.go.server.game.session.model.Player;
 import java.util.List;
 
@@ -12,14 +13,14 @@ public class Game {
     private final int boardSize;
     private final Player activePlayer;
     private final Player passivePlayer;
-    private final List<List<List<Intersection>>> positions;
+    private final Board board;
     private final boolean isGameEnded;
 
-    public Game(int boardSize, Player activePlayer, Player passivePlayer, List<List<List<Intersection>>> positions, boolean isGameEnded) {
+    public Game(int boardSize, Player activePlayer, Player passivePlayer, Board board, boolean isGameEnded) {
         this.boardSize = boardSize;
         this.activePlayer = activePlayer;
         this.passivePlayer = passivePlayer;
-        this.positions = positions;
+        this.board = board;
         this.isGameEnded = isGameEnded;
     }
 
@@ -35,8 +36,21 @@ public class Game {
         return passivePlayer;
     }
 
+    public Board getBoard() {
+        return board;
+    }
+
     public List<List<List<Intersection>>> getPositions() {
-        return positions;
+        // Wrap in single history list
+        return List.of(board.toIntersections());
+    }
+
+    /**
+     * Zobrist hash of the position including the side to move.
+     */
+    public long getHash() {
+        StoneState toMove = activePlayer.getColor() == Colors.BLACK ? StoneState.Black : StoneState.White;
+        return ZobristKeys.withSideToMove(boardSize, board.getPositionHash(), toMove);
     }
 
     public boolean isGameEnded() {
@@ -44,7 +58,7 @@ public class Game {
     }
 
     public GameDto toDto() {
-        List<BoardStateDto> positionDtos = positions.stream()
+        List<BoardStateDto> positionDtos = getPositions().stream()
             .map(board -> new BoardStateDto(board.stream()
                 .map(row -> new IntersectionRowDto(row.stream()
                     .map(Intersection::toDto)
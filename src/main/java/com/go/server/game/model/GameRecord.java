@@ -0,0 +1,86 @@
+package com.go.server.game.model;
+
+/**
+ * Board of a game together with the hashes of every position it went through,
+ * so moves repeating an earlier position (positional superko) can be rejected.
+ */
+public class GameRecord {
+    private final Board board;
+    private final PositionHistory history;
+    private int moveCount;
+    private int blackCaptures;
+    private int whiteCaptures;
+
+    public GameRecord(int size) {
+        this.board = new Board(size);
+        this.history = new PositionHistory();
+        this.history.add(board.getPositionHash());
+    }
+
+    private GameRecord(GameRecord other) {
+        this.board = other.board.copy();
+        this.history = other.history.copy();
+        this.moveCount = other.moveCount;
+        this.blackCaptures = other.blackCaptures;
+        this.whiteCaptures = other.whiteCaptures;
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Stones the color captured so far.
+     */
+    public int getCaptures(StoneState color) {
+        return color == StoneState.Black ? blackCaptures : whiteCaptures;
+    }
+
+    public StoneState getNextColor() {
+        return moveCount % 2 == 0 ? StoneState.Black : StoneState.White;
+    }
+
+    public long getHash() {
+        return ZobristKeys.withSideToMove(board.getSize(), board.getPositionHash(), getNextColor());
+    }
+
+    public MoveLegality check(int x, int y) {
+        StoneState color = getNextColor();
+        MoveLegality legality = board.check(x, y, color);
+        if (legality.isLegal() && history.contains(board.hashAfter(x, y, color))) {
+            return MoveLegality.SUPERKO;
+        }
+        return legality;
+    }
+
+    public int play(int x, int y) {
+        MoveLegality legality = check(x, y);
+        if (!legality.isLegal()) {
+            throw new IllegalStateException(legality.getDescription());
+        }
+
+        StoneState color = getNextColor();
+        int captured = board.play(x, y, color);
+        if (color == StoneState.Black) {
+            blackCaptures += captured;
+        } else {
+            whiteCaptures += captured;
+        }
+        history.add(board.getPositionHash());
+        moveCount++;
+        return captured;
+    }
+
+    public void pass() {
+        board.pass();
+        moveCount++;
+    }
+
+    public GameRecord copy() {
+        return new GameRecord(this);
+    }
+}
@@ -0,0 +1,24 @@
+package com.go.server.game.model;
+
+public enum MoveLegality {
+    LEGAL("Legal move"),
+    OUT_OF_BOUNDS("Intersection is outside of the board"),
+    OCCUPIED("Intersection is already occupied"),
+    SUICIDE("Move would be suicide"),
+    KO("Move would retake the ko"),
+    SUPERKO("Move would repeat an earlier position");
+
+    private final String description;
+
+    MoveLegality(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public boolean isLegal() {
+        return this == LEGAL;
+    }
+}
@@ -0,0 +1,75 @@
+package com.go.server.game.model;
+
+/**
+ * Open addressing hash set of position hashes, storing them as primitive longs.
+ */
+public class PositionHistory {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final long EMPTY_SLOT = 0L;
+
+    private long[] slots;
+    private int size;
+    private boolean containsEmptySlotValue;
+
+    public PositionHistory() {
+        this.slots = new long[INITIAL_CAPACITY];
+    }
+
+    private PositionHistory(PositionHistory other) {
+        this.slots = other.slots.clone();
+        this.size = other.size;
+        this.containsEmptySlotValue = other.containsEmptySlotValue;
+    }
+
+    public boolean add(long hash) {
+        if (hash == EMPTY_SLOT) {
+            boolean added = !containsEmptySlotValue;
+            containsEmptySlotValue = true;
+            if (added) size++;
+            return added;
+        }
+
+        if (2 * (size + 1) > slots.length) {
+            resize();
+        }
+
+        int slot = find(slots, hash);
+        if (slots[slot] == hash) return false;
+
+        slots[slot] = hash;
+        size++;
+        return true;
+    }
+
+    public boolean contains(long hash) {
+        if (hash == EMPTY_SLOT) return containsEmptySlotValue;
+        return slots[find(slots, hash)] == hash;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public PositionHistory copy() {
+        return new PositionHistory(this);
+    }
+
+    private void resize() {
+        long[] previous = slots;
+        slots = new long[previous.length * 2];
+        for (long hash : previous) {
+            if (hash != EMPTY_SLOT) {
+                slots[find(slots, hash)] = hash;
+            }
+        }
+    }
+
+    private static int find(long[] slots, long hash) {
+        int mask = slots.length - 1;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (slots[slot] != EMPTY_SLOT && slots[slot] != hash) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
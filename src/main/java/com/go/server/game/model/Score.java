@@ -0,0 +1,101 @@
+package com.go.server.game.model;
+
+import java.util.Collection;
+
+/**
+ * Points of both colors at the end of a game, with komi added to White.
+ */
+public record Score(double black, double white) {
+    private static final byte EMPTY = 0;
+    private static final byte BLACK = 1;
+    private static final byte WHITE = 2;
+
+    /**
+     * Takes the dead stones off as prisoners of the opponent, then flood fills the empty regions.
+     * A region bordered by one color only is its territory, any other region is neutral.
+     */
+    public static Score count(GameRecord record, Collection<Location> deadStones, ScoringRules rules, double komi) {
+        Board board = record.getBoard();
+        int size = board.getSize();
+        byte[] points = new byte[size * size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                StoneState stone = board.get(x, y);
+                points[y * size + x] = stone == StoneState.Black ? BLACK : stone == StoneState.White ? WHITE : EMPTY;
+            }
+        }
+
+        int deadBlack = 0;
+        int deadWhite = 0;
+        for (Location stone : deadStones) {
+            if (stone.getX() < 0 || stone.getY() < 0 || stone.getX() >= size || stone.getY() >= size) {
+                throw new IllegalArgumentException("Dead stone outside of the board: " + stone.getX() + "," + stone.getY());
+            }
+            int point = stone.getY() * size + stone.getX();
+            if (points[point] == BLACK) deadBlack++;
+            if (points[point] == WHITE) deadWhite++;
+            points[point] = EMPTY;
+        }
+
+        int blackStones = 0;
+        int whiteStones = 0;
+        int blackTerritory = 0;
+        int whiteTerritory = 0;
+        int[] neighbors = Board.neighbors(size);
+        boolean[] visited = new boolean[points.length];
+        int[] stack = new int[points.length];
+        for (int start = 0; start < points.length; start++) {
+            if (points[start] == BLACK) {
+                blackStones++;
+                continue;
+            }
+            if (points[start] == WHITE) {
+                whiteStones++;
+                continue;
+            }
+            if (visited[start]) continue;
+
+            int regionSize = 0;
+            int borders = 0;
+            int top = 0;
+            stack[top++] = start;
+            visited[start] = true;
+            while (top > 0) {
+                int point = stack[--top];
+                regionSize++;
+                for (int i = point * 4; i < point * 4 + 4; i++) {
+                    int neighbor = neighbors[i];
+                    if (neighbor < 0) continue;
+                    if (points[neighbor] != EMPTY) {
+                        borders |= points[neighbor];
+                    } else if (!visited[neighbor]) {
+                        visited[neighbor] = true;
+                        stack[top++] = neighbor;
+                    }
+                }
+            }
+
+            if (borders == BLACK) blackTerritory += regionSize;
+            if (borders == WHITE) whiteTerritory += regionSize;
+        }
+
+        return switch (rules) {
+            case AREA -> new Score(blackStones + blackTerritory, whiteStones + whiteTerritory + komi);
+            case TERRITORY -> new Score(blackTerritory + record.getCaptures(StoneState.Black) + deadWhite,
+                    whiteTerritory + record.getCaptures(StoneState.White) + deadBlack + komi);
+        };
+    }
+
+    /**
+     * The color with more points, {@link StoneState#Empty} for a draw.
+     */
+    public StoneState winner() {
+        if (black > white) return StoneState.Black;
+        if (white > black) return StoneState.White;
+        return StoneState.Empty;
+    }
+
+    public double margin() {
+        return Math.abs(black - white);
+    }
+}
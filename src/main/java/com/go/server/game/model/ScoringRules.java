@@ -0,0 +1,12 @@
+package com.go.server.game.model;
+
+public enum ScoringRules {
+    /**
+     * Stones on the board and surrounded empty points count, as in Chinese rules.
+     */
+    AREA,
+    /**
+     * Surrounded empty points and prisoners count, as in Japanese rules.
+     */
+    TERRITORY
+}
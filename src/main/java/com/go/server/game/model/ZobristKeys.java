@@ -0,0 +1,37 @@
+package com.go.server.game.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random 64-bit keys per board size, color and intersection. The keys are generated from a fixed
+ * seed so position hashes stay stable across restarts and can be persisted.
+ */
+public final class ZobristKeys {
+    private static final long SEED = 0x5EED_60B0_A4D5L;
+    private static final long[][] STONE_KEYS = new long[Board.MAX_SIZE + 1][];
+    private static final long[] WHITE_TO_MOVE_KEYS = new long[Board.MAX_SIZE + 1];
+
+    static {
+        for (int size = Board.MIN_SIZE; size <= Board.MAX_SIZE; size++) {
+            SplittableRandom random = new SplittableRandom(SEED + size);
+            long[] keys = new long[2 * size * size];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = random.nextLong();
+            }
+            STONE_KEYS[size] = keys;
+            WHITE_TO_MOVE_KEYS[size] = random.nextLong();
+        }
+    }
+
+    private ZobristKeys() {
+        // Prevent instantiation
+    }
+
+    public static long stone(int size, StoneState color, int point) {
+        return STONE_KEYS[size][2 * point + (color == StoneState.Black ? 0 : 1)];
+    }
+
+    public static long withSideToMove(int size, long positionHash, StoneState toMove) {
+        return toMove == StoneState.White ? positionHash ^ WHITE_TO_MOVE_KEYS[size] : positionHash;
+    }
+}
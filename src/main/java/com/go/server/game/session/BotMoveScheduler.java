@@ -0,0 +1,165 @@
+package com.go.server.game.session;
+
+import com.go.server.game.session.model.BotDifficulty;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Plays bot moves on a bounded pool of workers, decoupled from the request of the human move.
+ * Every difficulty has its own queue and workers take from them in turn, so slow hard bots
+ * cannot hold up easy ones. A session has at most one queued bot move at a time.
+ * <p>
+ * Workers only start moves: a worker is free again once the move is handed to the engine, and the
+ * moves in flight are bounded separately, so the engine transport rather than the worker count
+ * limits how many bots think at once.
+ */
+@Component
+public class BotMoveScheduler {
+    private final Logger logger = LoggerFactory.getLogger(BotMoveScheduler.class);
+    private final Map<BotDifficulty, BlockingQueue<BotMoveJob>> queues = new EnumMap<>(BotDifficulty.class);
+    private final Map<BotDifficulty, Timer> queueWaitTimers = new EnumMap<>(BotDifficulty.class);
+    private final Map<BotDifficulty, Timer> moveTimers = new EnumMap<>(BotDifficulty.class);
+    private final Set<String> queuedSessions = ConcurrentHashMap.newKeySet();
+    private final Semaphore queuedJobs = new Semaphore(0);
+    private final Semaphore movesInFlight;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private final Counter rejected;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    public BotMoveScheduler(final MeterRegistry meterRegistry,
+                            @Value("${game.bot.workers:4}") final int workerCount,
+                            @Value("${game.bot.queue-capacity:256}") final int queueCapacity,
+                            @Value("${game.bot.max-in-flight:256}") final int maxInFlight) {
+        this.movesInFlight = new Semaphore(maxInFlight);
+        for (final var difficulty : BotDifficulty.values()) {
+            final var queue = new LinkedBlockingQueue<BotMoveJob>(queueCapacity);
+            final var tag = difficulty.name().toLowerCase();
+            queues.put(difficulty, queue);
+            queueWaitTimers.put(difficulty, Timer.builder("game.bot.queue.wait")
+                    .description("Time bot moves wait for a worker")
+                    .tag("difficulty", tag)
+                    .register(meterRegistry));
+            moveTimers.put(difficulty, Timer.builder("game.bot.move")
+                    .description("Time to generate and apply a bot move")
+                    .tag("difficulty", tag)
+                    .register(meterRegistry));
+            Gauge.builder("game.bot.queue.size", queue, Collection::size)
+                    .description("Bot moves waiting for a worker")
+                    .tag("difficulty", tag)
+                    .register(meterRegistry);
+        }
+        this.rejected = Counter.builder("game.bot.rejected")
+                .description("Bot moves rejected because the queue was full")
+                .register(meterRegistry);
+        Gauge.builder("game.bot.in-flight", movesInFlight, semaphore -> maxInFlight - semaphore.availablePermits())
+                .description("Bot moves started and not completed yet")
+                .register(meterRegistry);
+
+        for (int i = 1; i <= workerCount; i++) {
+            final var worker = new Thread(this::work, "bot-move-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * Queues a bot move for the session. Returns false if the session already has a queued
+     * bot move or the queue of its difficulty is full.
+     */
+    public boolean schedule(final String sessionId, final BotDifficulty difficulty, final Supplier<CompletableFuture<Void>> move) {
+        if (!queuedSessions.add(sessionId)) {
+            logger.debug("Bot move for session {} is already queued", sessionId);
+            return false;
+        }
+
+        if (!queues.get(difficulty).offer(new BotMoveJob(sessionId, difficulty, move, System.nanoTime()))) {
+            queuedSessions.remove(sessionId);
+            rejected.increment();
+            logger.warn("Bot move queue for difficulty {} is full, dropping move of session {}", difficulty, sessionId);
+            return false;
+        }
+
+        queuedJobs.release();
+        return true;
+    }
+
+    public int getQueueSize(final BotDifficulty difficulty) {
+        return queues.get(difficulty).size();
+    }
+
+    @PreDestroy
+    public void close() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    private void work() {
+        while (running) {
+            try {
+                queuedJobs.acquire();
+                // Polled only once a slot is free, so the job waits in the queue of its difficulty
+                try {
+                    movesInFlight.acquire();
+                } catch (InterruptedException e) {
+                    queuedJobs.release();
+                    throw e;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            start(next());
+        }
+    }
+
+    private BotMoveJob next() {
+        // Every permit stands for a queued job, so one is found within a few rounds
+        final var difficulties = BotDifficulty.values();
+        while (true) {
+            final var difficulty = difficulties[Math.floorMod(cursor.getAndIncrement(), difficulties.length)];
+            final var job = queues.get(difficulty).poll();
+            if (job != null) {
+                return job;
+            }
+        }
+    }
+
+    private void start(final BotMoveJob job) {
+        queuedSessions.remove(job.sessionId());
+        final var wait = Duration.ofNanos(System.nanoTime() - job.enqueued());
+        queueWaitTimers.get(job.difficulty()).record(wait);
+
+        final var sample = Timer.start();
+        CompletableFuture<Void> move;
+        try {
+            move = job.move().get();
+        } catch (RuntimeException e) {
+            move = CompletableFuture.failedFuture(e);
+        }
+        move.whenComplete((ignored, error) -> {
+            movesInFlight.release();
+            sample.stop(moveTimers.get(job.difficulty()));
+            if (error != null) {
+                logger.error("Bot move for session {} failed", job.sessionId(), error);
+            }
+        });
+    }
+
+    private record BotMoveJob(String sessionId, BotDifficulty difficulty, Supplier<CompletableFuture<Void>> move, long enqueued) {
+    }
+}
@@ -0,0 +1,121 @@
+package com.go.server.game.session;
+
+import com.go.server.game.session.exception.SessionBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Runs the commands of one session one after another, while commands of different sessions
+ * run in parallel. Every session gets a mailbox holding the tail of its command chain; the
+ * mailbox is dropped once it drained.
+ */
+@Component
+public class SessionMailboxes {
+    private final Logger logger = LoggerFactory.getLogger(SessionMailboxes.class);
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingCommands = new AtomicInteger();
+    private final Counter rejected;
+    private final int capacity;
+
+    public SessionMailboxes(final MeterRegistry meterRegistry,
+                            @Value("${game.session.mailbox.capacity:16}") final int capacity) {
+        this.capacity = capacity;
+        Gauge.builder("game.session.mailbox.pending", pendingCommands, AtomicInteger::get)
+                .description("Session commands queued or running")
+                .register(meterRegistry);
+        Gauge.builder("game.session.mailbox.active", mailboxes, Map::size)
+                .description("Sessions with queued or running commands")
+                .register(meterRegistry);
+        // One gauge for all sessions, a gauge per session would grow with the number of games
+        Gauge.builder("game.session.mailbox.depth.max", this, SessionMailboxes::getMaxDepth)
+                .description("Commands queued or running in the fullest session mailbox")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("game.session.mailbox.rejected")
+                .description("Session commands rejected because the mailbox was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues the command behind all earlier commands of the session. The command starts once they
+     * completed, successfully or not, and fails with a {@link SessionBusyException} if the mailbox is full.
+     */
+    public <T> CompletableFuture<T> submit(final String sessionId, final Supplier<CompletableFuture<T>> command) {
+        final var result = new CompletableFuture<T>();
+        final var done = new CompletableFuture<Void>();
+        final var previous = new AtomicReference<CompletableFuture<Void>>();
+
+        mailboxes.compute(sessionId, (id, mailbox) -> {
+            final var current = Optional.ofNullable(mailbox).orElseGet(Mailbox::new);
+            if (current.depth >= capacity) {
+                return mailbox;
+            }
+            current.depth++;
+            previous.set(current.tail);
+            current.tail = done;
+            return current;
+        });
+
+        if (previous.get() == null) {
+            rejected.increment();
+            logger.warn("Mailbox of session {} is full", sessionId);
+            result.completeExceptionally(new SessionBusyException("Too many pending commands for this session."));
+            return result;
+        }
+
+        pendingCommands.incrementAndGet();
+        // Started outside of compute, the command may submit further commands itself
+        previous.get().whenComplete((value, error) -> run(sessionId, command, result, done));
+        return result;
+    }
+
+    public int getDepth(final String sessionId) {
+        return Optional.ofNullable(mailboxes.get(sessionId)).map(mailbox -> mailbox.depth).orElse(0);
+    }
+
+    public int getMaxDepth() {
+        return mailboxes.values().stream().mapToInt(mailbox -> mailbox.depth).max().orElse(0);
+    }
+
+    private <T> void run(final String sessionId, final Supplier<CompletableFuture<T>> command,
+                         final CompletableFuture<T> result, final CompletableFuture<Void> done) {
+        CompletableFuture<T> execution;
+        try {
+            execution = command.get();
+        } catch (RuntimeException error) {
+            execution = CompletableFuture.failedFuture(error);
+        }
+
+        execution.whenComplete((value, error) -> {
+            finish(sessionId);
+            done.complete(null);
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        });
+    }
+
+    private void finish(final String sessionId) {
+        pendingCommands.decrementAndGet();
+        mailboxes.computeIfPresent(sessionId, (id, mailbox) -> --mailbox.depth == 0 ? null : mailbox);
+    }
+
+    private static final class Mailbox {
+        private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+        private volatile int depth;
+    }
+}
@@ -3,7 +3,8 @@ package com.go.server.game.session;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.go.server.game.session.exception.InvalidMoveException;
 
-import com.go.server.game.engine.GameEngine;
+import com.go.server.game.engine.AsyncGameEngine;
+import com.go.server.game.engine.GameStates;
 import com.go.server.game.message.handler.MessageHandler;
 import com.go.server.game.message.messages.JoinedMessage;
 import com.go.server.game.message.messages.SimpleMessage;
@@ -23,14 +24,18 @@ import com.go.server.user.UserService;
 import com.go.server.user.exception.InvalidUserIdException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class SessionService {
@@ -40,17 +45,35 @@ public class SessionService {
     
     private final SessionRepository repository;
     private final MessageHandler messageHandler;
-    private final GameEngine gameEngine;
+    private final AsyncGameEngine gameEngine;
     private final UserService userService;
+    private final BotMoveScheduler botMoveScheduler;
+    private final SessionMailboxes mailboxes;
+    private final Duration moveDeadline;
+    private final Duration botMoveDeadline;
+    private final Duration scoreDeadline;
+    private final boolean verifyTurns;
     private final Logger logger = LoggerFactory.getLogger(SessionService.class);
     public SessionService(final SessionRepository repository, 
                           final MessageHandler messageHandler, 
-                          final GameEngine gameEngine,
-                          final UserService userService) {
+                          final AsyncGameEngine gameEngine,
+                          final UserService userService,
+                          final BotMoveScheduler botMoveScheduler,
+                          final SessionMailboxes mailboxes,
+                          @Value("${game.engine.deadline.move:10000}") final long moveDeadline,
+                          @Value("${game.engine.deadline.bot-move:60000}") final long botMoveDeadline,
+                          @Value("${game.engine.deadline.score:30000}") final long scoreDeadline,
+                          @Value("${game.session.verify-turns:false}") final boolean verifyTurns) {
         this.repository = repository;
         this.messageHandler = messageHandler;
         this.gameEngine = gameEngine;
         this.userService = userService;
+        this.botMoveScheduler = botMoveScheduler;
+        this.mailboxes = mailboxes;
+        this.moveDeadline = Duration.ofMillis(moveDeadline);
+        this.botMoveDeadline = Duration.ofMillis(botMoveDeadline);
+        this.scoreDeadline = Duration.ofMillis(scoreDeadline);
+        this.verifyTurns = verifyTurns;
     }
 
     public SessionDto createSession(final User player, final BotDifficulty difficulty, final Integer boardSize) {
@@ -66,84 +89,180 @@ public class SessionService {
     public void terminateSession(final String sessionId) {
         final var session = repository.getSession(sessionId);
         session.terminate();
+        gameEngine.releaseSession(session);
         repository.removeSession(session);
         messageHandler.send(new TerminatedMessage(session.toDto()));
     }
 
-    public void updateSession(final String sessionId, final User player, final DeviceMove move) {
+    /**
+     * Completes once the move is stored and broadcast. A bot answer is played afterwards
+     * by the {@link BotMoveScheduler}, so its think time never delays the human move.
+     */
+    public CompletableFuture<Void> updateSession(final String sessionId, final User player, final DeviceMove move) {
+        return mailboxes.submit(sessionId, () -> playHumanMove(sessionId, player, move));
+    }
+
+    private CompletableFuture<Void> playHumanMove(final String sessionId, final User player, final DeviceMove move) {
         final var session = repository.getSession(sessionId);
-        
-        Game game = gameEngine.getGameState(session);
-        validateTurn(game, player.getId());
-        
-        processHumanMove(session, move);
-        session.update();
-        repository.updateSession(session);
+        validateTurn(session, player.getId());
+
+        return verifyTurn(session)
+                .thenCompose(ignored -> applyMove(session, move))
+                .thenAccept(game -> scheduleBotMove(session));
     }
-    
-    private void validateTurn(Game game, UUID requestorId) {
-        UUID activePlayerId = game.getActivePlayer().getId();
-        
-        if (!activePlayerId.equals(requestorId)) {
+
+    /**
+     * Takes back the player's last move. Against a bot its reply is taken back as well, so a bot
+     * move still being generated is waited for and rolled back with it.
+     */
+    public CompletableFuture<Void> undoMove(final String sessionId, final User player) {
+        return mailboxes.submit(sessionId, () -> undoLastMove(sessionId, player));
+    }
+
+    private CompletableFuture<Void> undoLastMove(final String sessionId, final User player) {
+        final var session = repository.getSession(sessionId);
+        final var count = countUndoneMoves(session, player.getId());
+
+        return gameEngine.undoMoves(session, count, moveDeadline)
+                .thenAccept(game -> {
+                    session.update();
+                    repository.updateSession(session);
+                    broadcastGameState(sessionId, game.toDto());
+                });
+    }
+
+    private int countUndoneMoves(Session session, UUID requestorId) {
+        final var moves = session.getMoves();
+        if (GameStates.isGameEnded(moves)) {
+            throw new InvalidMoveException("The game has already ended!");
+        }
+
+        final Colors color = session.getPlayers().stream()
+                .filter(p -> p.getId().equals(requestorId))
+                .findFirst()
+                .map(Player::getColor)
+                .orElseThrow(() -> new InvalidMoveException("You are not playing in this game!"));
+        final int last = moves.size() - 1;
+        final int own = GameStates.colorOf(last) == color ? last : last - 1;
+        if (own < 0) {
+            throw new InvalidMoveException("There is no move to undo!");
+        }
+
+        boolean repliedByHuman = own < last && session.getPlayers().stream()
+                .anyMatch(p -> p.getColor() != color && !p.isBot());
+        if (repliedByHuman) {
+            throw new InvalidMoveException("Your opponent already replied!");
+        }
+        return moves.size() - own;
+    }
+
+    // The turn follows from the moves and the player colors, no engine round trip needed
+    private void validateTurn(Session session, UUID requestorId) {
+        if (GameStates.isGameEnded(session.getMoves())) {
+            throw new InvalidMoveException("The game has already ended!");
+        }
+
+        boolean isActivePlayer = findActivePlayer(session)
+                .map(player -> player.getId().equals(requestorId))
+                .orElse(false);
+        if (!isActivePlayer) {
              throw new InvalidMoveException("It is not your turn!");
         }
     }
 
-    public void initializeGame(final String sessionId) {
-        final var session = repository.getSession(sessionId);
-        Game game = gameEngine.getGameState(session);
-        broadcastGameState(sessionId, game.toDto());
+    private Optional<Player> findActivePlayer(Session session) {
+        if (GameStates.isGameEnded(session.getMoves())) {
+            return Optional.empty();
+        }
+
+        Colors activeColor = GameStates.nextColor(session.getMoves());
+        return session.getPlayers().stream()
+                .filter(p -> p.getColor() == activeColor)
+                .findFirst();
     }
-    
-    private void processHumanMove(Session session, DeviceMove move) {
-        Game game = gameEngine.processMove(session, move);
-        
-        GameDto gameDto = game.toDto();
-        broadcastGameState(session.getId(), gameDto);
-        
-        if (game.isGameEnded()) {
-            handleGameEnd(session);
-        } else {
-            checkForBotMove(session, game);
+
+    /**
+     * Compares the local turn validation with the engine, if enabled. Meant for tests, as it
+     * brings back the engine round trip the local validation saves.
+     */
+    private CompletableFuture<Void> verifyTurn(Session session) {
+        if (!verifyTurns) {
+            return CompletableFuture.completedFuture(null);
         }
+
+        return gameEngine.getGameState(session, moveDeadline).thenAccept(game -> {
+            UUID expected = game.isGameEnded() ? null : game.getActivePlayer().getId();
+            UUID actual = findActivePlayer(session).map(Player::getId).orElse(null);
+            if (!Objects.equals(expected, actual)) {
+                logger.error("Turn of session {} differs from engine. local: {}, engine: {}", session.getId(), actual, expected);
+                throw new IllegalStateException("Turn validation differs from the game engine");
+            }
+        });
+    }
+
+    public CompletableFuture<Void> initializeGame(final String sessionId) {
+        return mailboxes.submit(sessionId, () -> {
+            final var session = repository.getSession(sessionId);
+            return gameEngine.getGameState(session, moveDeadline)
+                    .thenAccept(game -> {
+                        broadcastGameState(sessionId, game.toDto());
+                        // Resume a bot whose move got lost, e.g. by a restart
+                        scheduleBotMove(session);
+                    });
+        });
+    }
+
+    private CompletableFuture<Game> applyMove(Session session, DeviceMove move) {
+        return gameEngine.processMove(session, move, moveDeadline)
+                .thenCompose(game -> {
+                    broadcastGameState(session.getId(), game.toDto());
+
+                    CompletableFuture<Void> gameEnd = game.isGameEnded()
+                            ? handleGameEnd(session)
+                            : CompletableFuture.completedFuture(null);
+                    return gameEnd.thenApply(ignored -> {
+                        session.update();
+                        repository.updateSession(session);
+                        return game;
+                    });
+                });
     }
 
     private void broadcastGameState(String sessionId, GameDto gameDto) {
         messageHandler.send(new SimpleMessage(sessionId, TOPIC_UPDATED, gameDto));
     }
     
-    private void handleGameEnd(Session session) {
-        try {
-            EndGame endGame = gameEngine.getScore(session);
-            messageHandler.send(new com.go.server.game.message.messages.EndGameMessage(session.getId(), endGame.toDto()));
-        } catch (Exception e) {
-            logger.error("Failed to calculate score or send end game message", e);
-        }
+    private CompletableFuture<Void> handleGameEnd(Session session) {
+        return gameEngine.getScore(session, scoreDeadline)
+                .thenAccept(endGame -> messageHandler.send(new com.go.server.game.message.messages.EndGameMessage(session.getId(), endGame.toDto())))
+                .exceptionally(e -> {
+                    logger.error("Failed to calculate score or send end game message", e);
+                    return null;
+                });
     }
 
-    private void checkForBotMove(Session session, Game game) {
-        String activeColor = game.getActivePlayer().getColor().name();
-        
-        Optional<Player> botPlayer = session.getPlayers().stream()
-                .filter(p -> p.isBot() && p.getColor().name().equalsIgnoreCase(activeColor))
-                .findFirst();
-                
-        botPlayer.ifPresent(bot -> {
+    private void scheduleBotMove(Session session) {
+        findActivePlayer(session).filter(Player::isBot).ifPresent(bot -> {
             logger.debug("It is Bot's turn ({})", bot.getColor());
-            gameEngine.generateMove(session).ifPresent(move -> {
-                Game newGame = gameEngine.processMove(session, move);
-                GameDto newGameDto = newGame.toDto();
-                broadcastGameState(session.getId(), newGameDto);
-                
-                if (newGame.isGameEnded()) {
-                    handleGameEnd(session);
-                } else {
-                    checkForBotMove(session, newGame);
-                }
-            });
+            BotDifficulty difficulty = session.getDifficulty().orElse(BotDifficulty.MEDIUM);
+            botMoveScheduler.schedule(session.getId(), difficulty, () -> mailboxes.submit(session.getId(), () -> playBotMove(session.getId())));
         });
     }
 
+    private CompletableFuture<Void> playBotMove(String sessionId) {
+        // Reload, the session may have moved on or ended while the job was queued
+        final var session = repository.getSession(sessionId);
+
+        if (findActivePlayer(session).filter(Player::isBot).isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return gameEngine.generateMove(session, botMoveDeadline)
+                .thenCompose(botMove -> botMove
+                        .map(move -> applyMove(session, move).thenAccept(game -> scheduleBotMove(session)))
+                        .orElseGet(() -> CompletableFuture.completedFuture(null)));
+    }
+
     public SessionDto joinSession(final User player, final String sessionId) {
         final var gamePlayer = Player.human(player.getId(), Colors.WHITE);
         final var sessionDto = addPlayer(gamePlayer, sessionId).toDto();
@@ -174,6 +293,7 @@ public class SessionService {
                 );
 
         repository.addSession(session);
+        gameEngine.prepareSession(session);
         return session;
     }
 
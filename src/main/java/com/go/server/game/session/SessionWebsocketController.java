@@ -1,6 +1,7 @@
 package com.go.server.game.session;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.go.server.game.error.GlobalExceptionHandler;
 import jakarta.validation.Valid;
 import java.security.Principal;
 import com.go.server.game.session.model.Session;
@@ -15,6 +16,7 @@ import java.util.UUID;
 import java.util.EnumMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,11 +34,14 @@ public class SessionWebsocketController {
     private final Logger logger = LoggerFactory.getLogger(SessionWebsocketController.class);
     private final SessionService sessionService;
     private final UserService userService;
+    private final GlobalExceptionHandler exceptionHandler;
     private final ObjectMapper objectMapper = new ObjectMapper();
     public SessionWebsocketController(@NonNull final SessionService sessionService,
-                                      @NonNull final UserService userService) {
+                                      @NonNull final UserService userService,
+                                      @NonNull final GlobalExceptionHandler exceptionHandler) {
         this.sessionService = sessionService;
         this.userService = userService;
+        this.exceptionHandler = exceptionHandler;
     }
 
 
@@ -78,31 +83,39 @@ public class SessionWebsocketController {
                 .map(cmd -> String.valueOf(cmd.get("name")))
                 .map(GameCommandType::fromString)
                 .ifPresentOrElse(
-                        commandType -> handleCommand(sessionId, player, commandType, (Map<String, Object>) payload.get("command")),
-                        () -> handleLegacyPayload(sessionId, player, payload)
+                        commandType -> handleCommand(username, sessionId, player, commandType, (Map<String, Object>) payload.get("command")),
+                        () -> handleLegacyPayload(username, sessionId, player, payload)
                 );
     }
 
-    private void handleCommand(String sessionId, User player, GameCommandType commandType, Map<String, Object> commandPayload) {
+    private void handleCommand(String username, String sessionId, User player, GameCommandType commandType, Map<String, Object> commandPayload) {
 
         switch (commandType) {
             case PLAY -> {
                 Optional.ofNullable(commandPayload.get("location"))
                     .map(loc -> objectMapper.convertValue(loc, DeviceMove.class))
-                    .ifPresent(move -> sessionService.updateSession(sessionId, player, move));
+                    .ifPresent(move -> reportFailures(username, sessionService.updateSession(sessionId, player, move)));
             }
-            case PASS -> sessionService.updateSession(sessionId, player, DeviceMove.pass());
-            case CREATE -> sessionService.initializeGame(sessionId);
+            case PASS -> reportFailures(username, sessionService.updateSession(sessionId, player, DeviceMove.pass()));
+            case UNDO -> reportFailures(username, sessionService.undoMove(sessionId, player));
+            case CREATE -> reportFailures(username, sessionService.initializeGame(sessionId));
             default -> logger.warn("Unknown command received in update");
         }
     }
 
-    private void handleLegacyPayload(String sessionId, User player, Map<String, Object> payload) {
+    private void reportFailures(String username, CompletableFuture<Void> update) {
+        update.exceptionally(error -> {
+            exceptionHandler.handleAsyncException(username, error);
+            return null;
+        });
+    }
+
+    private void handleLegacyPayload(String username, String sessionId, User player, Map<String, Object> payload) {
         try {
             Optional.ofNullable(objectMapper.convertValue(payload, DeviceMove.class))
                     .filter(move -> move.getType() != null)
                     .filter(move -> move.getType() != null)
-                    .ifPresent(move -> sessionService.updateSession(sessionId, player, move));
+                    .ifPresent(move -> reportFailures(username, sessionService.updateSession(sessionId, player, move)));
         } catch (Exception e) {
             logger.error("Failed to parse update payload for session {}: {}", sessionId, payload);
         }
@@ -0,0 +1,7 @@
+package com.go.server.game.session.exception;
+
+public class SessionBusyException extends RuntimeException {
+    public SessionBusyException(String message) {
+        super(message);
+    }
+}
@@ -6,6 +6,7 @@ public enum GameCommandType {
     CREATE("Create"),
     PLAY("Play"),
     PASS("Pass"),
+    UNDO("Undo"),
     UNKNOWN("Unknown");
 
     private final String commandName;
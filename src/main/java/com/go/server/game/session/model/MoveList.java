@@ -0,0 +1,224 @@
+package com.go.server.game.session.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * The moves of a game as GTP vertices packed into one short each: the column index in the high
+ * byte and the row number in the low byte, with {@link #PASS} for passes. The packing does not depend
+ * on the board size, and the list reads as the GTP strings through a shared table.
+ * <p>
+ * Moves are only changed by the session's owner; readers see a consistent prefix without locking.
+ */
+public final class MoveList extends AbstractList<String> implements RandomAccess {
+    public static final short PASS = -1;
+
+    private static final String PASS_VERTEX = "PASS";
+    private static final char SKIPPED_COLUMN = 'I';
+    private static final int MAX_COORDINATE = 25;
+    private static final String[][] VERTICES = new String[MAX_COORDINATE][MAX_COORDINATE + 1];
+    private static final byte FORMAT_VERSION = 1;
+
+    static {
+        for (int column = 0; column < MAX_COORDINATE; column++) {
+            final char letter = (char) ('A' + column + (column >= SKIPPED_COLUMN - 'A' ? 1 : 0));
+            for (int row = 1; row <= MAX_COORDINATE; row++) {
+                VERTICES[column][row] = String.valueOf(letter) + row;
+            }
+        }
+    }
+
+    private volatile short[] moves;
+    private volatile int size;
+
+    public MoveList() {
+        this(new short[16], 0);
+    }
+
+    private MoveList(final short[] moves, final int size) {
+        this.moves = moves;
+        this.size = size;
+    }
+
+    /**
+     * Packs a GTP vertex such as {@code "D4"} or {@code "pass"}.
+     */
+    public static short pack(final String vertex) {
+        if (PASS_VERTEX.equalsIgnoreCase(vertex)) {
+            return PASS;
+        }
+        if (vertex.length() < 2) {
+            throw new IllegalArgumentException("Invalid GTP vertex \"" + vertex + "\"");
+        }
+
+        final char letter = Character.toUpperCase(vertex.charAt(0));
+        final int column = letter - 'A' - (letter > SKIPPED_COLUMN ? 1 : 0);
+        final int row;
+        try {
+            row = Integer.parseInt(vertex, 1, vertex.length(), 10);
+        } catch (NumberFormatException error) {
+            throw new IllegalArgumentException("Invalid GTP vertex \"" + vertex + "\"", error);
+        }
+        if (letter == SKIPPED_COLUMN || column < 0 || column >= MAX_COORDINATE || row < 1 || row > MAX_COORDINATE) {
+            throw new IllegalArgumentException("Invalid GTP vertex \"" + vertex + "\"");
+        }
+        return (short) (column << 8 | row);
+    }
+
+    public static String vertex(final short move) {
+        return move == PASS ? PASS_VERTEX : VERTICES[column(move)][row(move)];
+    }
+
+    public static int column(final short move) {
+        return move >> 8;
+    }
+
+    public static int row(final short move) {
+        return move & 0xFF;
+    }
+
+    /**
+     * Reads moves written by {@link #toBytes()}.
+     */
+    public static MoveList fromBytes(final byte[] bytes) {
+        final var moves = new MoveList();
+        moves.addBytes(bytes);
+        return moves;
+    }
+
+    /**
+     * Appends moves written by {@link #toBytes()}.
+     */
+    public synchronized void addBytes(final byte[] bytes) {
+        if (bytes.length == 0) {
+            return;
+        }
+        if (bytes[0] != FORMAT_VERSION || bytes.length % 2 != 1) {
+            throw new IllegalArgumentException("Unsupported move encoding of " + bytes.length + " bytes, version " + bytes[0]);
+        }
+
+        final var added = bytes.length / 2;
+        final var count = size;
+        var current = moves;
+        if (count + added > current.length) {
+            current = Arrays.copyOf(current, Math.max(current.length * 2, count + added));
+        }
+        for (int i = 0; i < added; i++) {
+            current[count + i] = (short) ((bytes[1 + 2 * i] & 0xFF) << 8 | bytes[2 + 2 * i] & 0xFF);
+        }
+        moves = current;
+        size = count + added;
+    }
+
+    /**
+     * A version byte followed by every move as a big endian short.
+     */
+    public byte[] toBytes() {
+        return toBytes(0, size);
+    }
+
+    /**
+     * Like {@link #toBytes()}, for the moves from {@code from} up to {@code to}.
+     */
+    public byte[] toBytes(final int from, final int to) {
+        final var count = size;
+        final var current = moves;
+        if (from < 0 || from > to || to > count) {
+            throw new IndexOutOfBoundsException("Moves " + from + " to " + to + " of " + count);
+        }
+
+        final var bytes = new byte[1 + (to - from) * 2];
+        bytes[0] = FORMAT_VERSION;
+        for (int i = from; i < to; i++) {
+            bytes[1 + 2 * (i - from)] = (byte) (current[i] >> 8);
+            bytes[2 + 2 * (i - from)] = (byte) current[i];
+        }
+        return bytes;
+    }
+
+    public short getPacked(final int index) {
+        final var count = size;
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Move " + index + " of " + count);
+        }
+        return moves[index];
+    }
+
+    @Override
+    public String get(final int index) {
+        return vertex(getPacked(index));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean add(final String vertex) {
+        addPacked(pack(vertex));
+        return true;
+    }
+
+    public synchronized void addPacked(final short move) {
+        final var count = size;
+        var current = moves;
+        if (count == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[count] = move;
+        // Publishing the array before the size keeps readers that read the size first consistent
+        moves = current;
+        size = count + 1;
+    }
+
+    /**
+     * Drops every move after the first {@code size} ones. The moves are copied, so appends after
+     * taking moves back never overwrite an array a reader still holds.
+     */
+    public synchronized void truncate(final int size) {
+        final var count = this.size;
+        if (size < 0 || size > count) {
+            throw new IndexOutOfBoundsException("Truncating " + count + " moves to " + size);
+        }
+        moves = Arrays.copyOf(moves, moves.length);
+        this.size = size;
+    }
+
+    /**
+     * Whether this list holds the first moves of the other one.
+     */
+    public boolean isPrefixOf(final MoveList other) {
+        final var count = size;
+        return count <= other.size() && Arrays.equals(moves, 0, count, other.moves, 0, count);
+    }
+
+    /**
+     * The number of first moves both lists have in common.
+     */
+    public int commonPrefixLength(final MoveList other) {
+        final var count = Math.min(size, other.size());
+        final var mismatch = Arrays.mismatch(moves, 0, count, other.moves, 0, count);
+        return mismatch < 0 ? count : mismatch;
+    }
+
+    public MoveList copy() {
+        final var count = size;
+        return new MoveList(Arrays.copyOf(moves, Math.max(16, count)), count);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (other instanceof MoveList list) {
+            final var count = size;
+            return count == list.size() && isPrefixOf(list);
+        }
+        return super.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+}
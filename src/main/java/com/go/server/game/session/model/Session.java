@@ -24,7 +24,7 @@ public class Session {
     private boolean isEmpty = false;
     private BotDifficulty difficulty;
     private int boardSize = 19;
-    private final List<String> moves = new CopyOnWriteArrayList<>();
+    private final MoveList moves = new MoveList();
 
     public Session(final Instant updated) {
         this.updated = updated;
@@ -56,7 +56,7 @@ public class Session {
         this.boardSize = boardSize;
     }
     
-    public List<String> getMoves() {
+    public MoveList getMoves() {
         return moves;
     }
     
@@ -64,6 +64,10 @@ public class Session {
         this.moves.add(move);
     }
 
+    public void removeLastMoves(int count) {
+        this.moves.truncate(moves.size() - count);
+    }
+
     public Session(final String id, final Instant updated, final List<Player> players) {
         this.id = id;
         this.updated = updated;
@@ -1,41 +1,122 @@
 package com.go.server.game.session.repository;
 
+import com.go.server.game.session.model.MoveList;
 import com.go.server.game.session.model.Session;
+import com.go.server.game.session.repository.document.MovePageDocument;
 import com.go.server.game.session.repository.document.SessionDocument;
+import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.FieldPath;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Repository;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.IntStream;
 import java.util.concurrent.ExecutionException;
 import com.go.server.game.session.exception.SessionNotFoundException;
 
+/**
+ * Keeps the documents of active sessions in memory as the source of truth, so reading a session
+ * needs no Firestore round trip. Updates are written behind: every flush interval, the latest
+ * document of each updated session is written in one batch, and failed writes are retried with the
+ * next flush. Removing a session and shutting down write through.
+ * <p>
+ * Moves are appended rather than rewritten: the session document is a small header holding the
+ * moves after the last full page, and full pages go to a subcollection, see {@link MovePageDocument}.
+ * Compared to what was last written, a flush updates the header fields and writes the pages filled
+ * or changed since, so the bytes written per move no longer grow with the length of the game.
+ * <p>
+ * With the store disabled, every call goes to Firestore, as needed when several instances serve
+ * the same sessions. An update then writes the difference to the document this instance last
+ * read or wrote, which for a move is the document read by the same session command.
+ */
 @Repository
 public class SessionRepository {
     private final static char DOCUMENT_NAMESPACE_SEPARATOR = '/';
+    // A session takes a header and a few pages at most, well within the 500 writes of a batch
+    private final static int MAX_BATCH_SESSIONS = 50;
     private final Logger logger = LoggerFactory.getLogger(SessionRepository.class);
     private final Firestore firestore;
+    private final Map<String, SessionDocument> documents = new ConcurrentHashMap<>();
+    private final Map<String, SessionDocument> pending = new ConcurrentHashMap<>();
+    // What was last read or written of each session, which updates write the difference to
+    private final Map<String, SessionDocument> written = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private final boolean storeEnabled;
+    private final Duration idleTimeout;
+    private final Counter reads;
+    private final Counter queries;
+    private final Counter writes;
+    private final Counter deletes;
+    private final Counter failedWrites;
 
-    public SessionRepository(@NonNull final Firestore firestore) {
+    public SessionRepository(@NonNull final Firestore firestore,
+                             final MeterRegistry meterRegistry,
+                             @Value("${game.session.store.enabled:true}") final boolean storeEnabled,
+                             @Value("${game.session.store.idle-timeout:600000}") final long idleTimeout) {
         this.firestore = firestore;
+        this.storeEnabled = storeEnabled;
+        this.idleTimeout = Duration.ofMillis(idleTimeout);
+        this.reads = firestoreCalls(meterRegistry, "read");
+        this.queries = firestoreCalls(meterRegistry, "query");
+        this.writes = firestoreCalls(meterRegistry, "write");
+        this.deletes = firestoreCalls(meterRegistry, "delete");
+        this.failedWrites = Counter.builder("game.session.store.write.failures")
+                .description("Session documents whose write behind failed and is retried")
+                .register(meterRegistry);
+        Gauge.builder("game.session.store.pending", pending, Map::size)
+                .description("Updated sessions waiting to be written to Firestore")
+                .register(meterRegistry);
+        Gauge.builder("game.session.store.size", documents, Map::size)
+                .description("Sessions held in memory")
+                .register(meterRegistry);
     }
 
+    private static Counter firestoreCalls(final MeterRegistry meterRegistry, final String operation) {
+        return Counter.builder("game.session.firestore.calls")
+                .description("Session documents read, queried, written or deleted in Firestore")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Lists all sessions for the lobby and the cleanup. Sessions not held in memory come without
+     * their moves, which would take a query per game; {@link #getSession(String)} reads them.
+     */
     public List<Session> getAllSessions() {
         try {
-            return firestore
+            queries.increment();
+            final var stored = firestore
                     .collection(SessionDocument.COLLECTION_NAME)
                     .get()
                     .get()
                     .getDocuments()
                     .stream()
-                    .map(mapping -> SessionDocument.toSession(mapping.toObject(SessionDocument.class)))
+                    .map(mapping -> mapping.toObject(SessionDocument.class))
                     .toList();
+
+            // Sessions held in memory may be ahead of what was written so far
+            final var merged = new LinkedHashMap<String, SessionDocument>();
+            stored.forEach(document -> merged.put(document.id, documents.getOrDefault(document.id, document)));
+            documents.values().forEach(document -> merged.putIfAbsent(document.id, document));
+            return merged.values().stream().map(SessionDocument::toSession).toList();
         } catch (ExecutionException | InterruptedException error) {
             logger.error("Error during requesting all sessions: {}", error.getMessage());
             return List.of();
@@ -44,27 +125,38 @@ public class SessionRepository {
 
     public void addSession(final Session session) {
         final var document = SessionDocument.fromSession(session);
+        final var moves = MoveList.fromBytes(document.moveData.toBytes());
 
         try {
             // TODO: Check if session already exists
-            firestore
-                    .document(SessionDocument.COLLECTION_NAME + DOCUMENT_NAMESPACE_SEPARATOR + document.id)
-                    .create(document)
-                    .get();
+            final var reference = firestore
+                    .document(SessionDocument.COLLECTION_NAME + DOCUMENT_NAMESPACE_SEPARATOR + document.id);
+            final var batchWrite = firestore.batch().create(reference, document.toHeader(moves));
+            writes.increment(1 + writePages(batchWrite, reference, moves, 0));
+            batchWrite.commit().get();
+            cache(document);
+            written.put(document.id, document);
         } catch (ExecutionException | InterruptedException error) {
             logger.error("Error during adding session: {}", error.getMessage());
         }
     }
 
     public void removeSession(final Session session) {
-        try {
-            firestore
-                    .collection(SessionDocument.COLLECTION_NAME)
-                    .document(session.getId())
-                    .delete()
-                    .get();
-        } catch (ExecutionException | InterruptedException error) {
-            logger.error("Error during removing session: {}", error.getMessage());
+        synchronized (writeLock) {
+            documents.remove(session.getId());
+            pending.remove(session.getId());
+            written.remove(session.getId());
+            try {
+                final var reference = firestore
+                        .collection(SessionDocument.COLLECTION_NAME)
+                        .document(session.getId());
+                final var batchWrite = firestore.batch();
+                deletes.increment(1 + deletePages(batchWrite, reference));
+                batchWrite.delete(reference);
+                batchWrite.commit().get();
+            } catch (ExecutionException | InterruptedException error) {
+                logger.error("Error during removing session: {}", error.getMessage());
+            }
         }
     }
 
@@ -79,34 +171,59 @@ public class SessionRepository {
     private void removeSessionBatch(final List<Session> batch) {
         final var sessionIds = batch.stream().map(Session::getId).toList();
 
-        try {
-            final var documents = firestore
-                    .collection(SessionDocument.COLLECTION_NAME)
-                    .whereIn(FieldPath.documentId(), sessionIds)
-                    .get()
-                    .get()
-                    .getDocuments();
+        synchronized (writeLock) {
+            sessionIds.forEach(id -> {
+                documents.remove(id);
+                pending.remove(id);
+                written.remove(id);
+            });
+            try {
+                queries.increment();
+                final var stored = firestore
+                        .collection(SessionDocument.COLLECTION_NAME)
+                        .whereIn(FieldPath.documentId(), sessionIds)
+                        .get()
+                        .get()
+                        .getDocuments();
 
-            if (!documents.isEmpty()) {
-                final var batchWrite = firestore.batch();
-                documents.forEach(doc -> batchWrite.delete(doc.getReference()));
-                batchWrite.commit().get();
+                if (!stored.isEmpty()) {
+                    final var batchWrite = firestore.batch();
+                    for (final var doc : stored) {
+                        deletes.increment(1 + deletePages(batchWrite, doc.getReference()));
+                        batchWrite.delete(doc.getReference());
+                    }
+                    batchWrite.commit().get();
+                }
+            } catch (ExecutionException | InterruptedException error) {
+                logger.error("Error during removing sessions batch: {}", error.getMessage());
             }
-        } catch (ExecutionException | InterruptedException error) {
-            logger.error("Error during removing sessions batch: {}", error.getMessage());
         }
     }
 
     public Optional<Session> findSession(final String sessionId) {
+        final var cached = documents.get(sessionId);
+        if (cached != null) {
+            return Optional.of(SessionDocument.toSession(cached));
+        }
+
         try {
+            reads.increment();
             final var document = firestore
                     .collection(SessionDocument.COLLECTION_NAME)
                     .document(sessionId)
                     .get()
                     .get()
                     .toObject(SessionDocument.class);
+            if (document == null) {
+                return Optional.empty();
+            }
 
-            return Optional.ofNullable(document).map(SessionDocument::toSession);
+            final var read = readPages(document);
+            if (read.hasMovePages()) {
+                // Only appends to a paged document; the first write of a legacy one replaces it
+                written.put(read.id, read);
+            }
+            return Optional.of(cache(read)).map(SessionDocument::toSession);
         } catch (ExecutionException | InterruptedException error) {
             logger.error("Error during requesting session: {}", error.getMessage());
             return Optional.empty();
@@ -121,35 +238,186 @@ public class SessionRepository {
     public Session updateSession(final Session session) {
         final var document = SessionDocument.fromSession(session);
 
+        if (storeEnabled) {
+            documents.put(document.id, document);
+            pending.put(document.id, document);
+            return session;
+        }
+
         try {
-            firestore
-                    .collection(SessionDocument.COLLECTION_NAME)
-                    .document(document.id)
-                    .set(document)
-                    .get();
+            final var reference = firestore.collection(SessionDocument.COLLECTION_NAME).document(document.id);
+            final var batchWrite = firestore.batch();
+            writes.increment(write(batchWrite, reference, document, written.get(document.id)));
+            batchWrite.commit().get();
+            written.put(document.id, document);
         } catch (ExecutionException | InterruptedException error) {
+            // Unknown what was stored, the next update writes all of it
+            written.remove(document.id);
             logger.error("Error during updating session: {}", error.getMessage());
         }
-        
-
 
         return session;
     }
 
     public Optional<Session> getSessionByPlayerId(final UUID playerId) {
+        final var playerIdValue = playerId.toString();
+        final var cached = documents.values().stream()
+                .filter(document -> document.playerIds != null && document.playerIds.contains(playerIdValue))
+                .findFirst();
+        if (cached.isPresent()) {
+            return cached.map(SessionDocument::toSession);
+        }
+
         try {
-            return firestore
+            queries.increment();
+            final var stored = firestore
                     .collection(SessionDocument.COLLECTION_NAME)
-                    .whereArrayContains(SessionDocument.PLAYER_IDS_FIELD_NAME, playerId.toString())
+                    .whereArrayContains(SessionDocument.PLAYER_IDS_FIELD_NAME, playerIdValue)
                     .get()
                     .get()
                     .toObjects(SessionDocument.class)
                     .stream()
-                    .findFirst()
-                    .map(SessionDocument::toSession);
+                    // A session held in memory may have lost the player already
+                    .filter(document -> !documents.containsKey(document.id))
+                    .findFirst();
+            return stored.isPresent() ? Optional.of(SessionDocument.toSession(readPages(stored.get()))) : Optional.empty();
         } catch (ExecutionException | InterruptedException error) {
             logger.error("Error during requesting player session: {}", error.getMessage());
             return Optional.empty();
         }
     }
+
+    /**
+     * Writes the latest document of every session updated since the last flush. Documents of a
+     * failed batch stay pending, unless the session was updated again meanwhile.
+     */
+    @Scheduled(fixedDelayString = "${game.session.store.flush-interval:1000}")
+    public void flush() {
+        synchronized (writeLock) {
+            final var updated = new ArrayList<SessionDocument>(pending.size());
+            for (final var sessionId : List.copyOf(pending.keySet())) {
+                Optional.ofNullable(pending.remove(sessionId)).ifPresent(updated::add);
+            }
+
+            for (int i = 0; i < updated.size(); i += MAX_BATCH_SESSIONS) {
+                write(updated.subList(i, Math.min(i + MAX_BATCH_SESSIONS, updated.size())));
+            }
+        }
+        evictIdleSessions();
+    }
+
+    private void write(final List<SessionDocument> batch) {
+        try {
+            final var batchWrite = firestore.batch();
+            var operations = 0;
+            for (final var document : batch) {
+                final var reference = firestore.collection(SessionDocument.COLLECTION_NAME).document(document.id);
+                operations += write(batchWrite, reference, document, written.get(document.id));
+            }
+            writes.increment(operations);
+            batchWrite.commit().get();
+            batch.forEach(document -> written.put(document.id, document));
+        } catch (ExecutionException | InterruptedException | RuntimeException error) {
+            logger.warn("Writing {} sessions failed, retrying with the next flush: {}", batch.size(), error.getMessage());
+            failedWrites.increment(batch.size());
+            batch.forEach(document -> pending.putIfAbsent(document.id, document));
+            if (error instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Adds the writes taking the stored document from what was written before to the given one,
+     * which is all of it without a previous write. Returns the number of documents written.
+     */
+    private int write(final WriteBatch batchWrite,
+                      final DocumentReference reference,
+                      final SessionDocument document,
+                      final SessionDocument previous) {
+        final var moves = MoveList.fromBytes(document.moveData.toBytes());
+        final var header = document.toHeader(moves);
+        if (previous == null || !previous.hasSameHeader(document)) {
+            batchWrite.set(reference, header);
+            return 1 + writePages(batchWrite, reference, moves, 0);
+        }
+
+        batchWrite.update(reference, Map.of(
+                SessionDocument.UPDATED_FIELD_NAME, header.updated,
+                SessionDocument.MOVE_COUNT_FIELD_NAME, header.moveCount,
+                SessionDocument.MOVE_TAIL_FIELD_NAME, header.moveTail));
+        final var unchanged = MoveList.fromBytes(previous.moveData.toBytes()).commonPrefixLength(moves);
+        return 1 + writePages(batchWrite, reference, moves, unchanged);
+    }
+
+    private int writePages(final WriteBatch batchWrite,
+                           final DocumentReference reference,
+                           final MoveList moves,
+                           final int from) {
+        final var pages = MovePageDocument.fromMoves(moves, from);
+        pages.forEach(page -> batchWrite.set(reference.collection(MovePageDocument.COLLECTION_NAME).document(page.id), page));
+        return pages.size();
+    }
+
+    private int deletePages(final WriteBatch batchWrite, final DocumentReference reference) {
+        queries.increment();
+        var count = 0;
+        for (final var page : reference.collection(MovePageDocument.COLLECTION_NAME).listDocuments()) {
+            batchWrite.delete(page);
+            count++;
+        }
+        return count;
+    }
+
+    private SessionDocument readPages(final SessionDocument document) throws ExecutionException, InterruptedException {
+        if (!document.hasMovePages()) {
+            return document;
+        }
+        if (MovePageDocument.fullPages(document.moveCount) == 0) {
+            return document.withPages(List.of());
+        }
+
+        queries.increment();
+        final var pages = firestore
+                .collection(SessionDocument.COLLECTION_NAME)
+                .document(document.id)
+                .collection(MovePageDocument.COLLECTION_NAME)
+                .get()
+                .get()
+                .toObjects(MovePageDocument.class);
+        return document.withPages(pages);
+    }
+
+    private void evictIdleSessions() {
+        final var idleSince = Instant.now().minus(idleTimeout);
+        documents.forEach((sessionId, document) -> {
+            if (!pending.containsKey(sessionId) && document.updated.toDate().toInstant().isBefore(idleSince)) {
+                // Keeps a document updated meanwhile
+                if (documents.remove(sessionId, document)) {
+                    written.remove(sessionId);
+                }
+            }
+        });
+        // Sessions read or written without the store
+        written.forEach((sessionId, document) -> {
+            if (!documents.containsKey(sessionId) && document.updated.toDate().toInstant().isBefore(idleSince)) {
+                written.remove(sessionId, document);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+        if (!pending.isEmpty()) {
+            logger.error("{} sessions could not be written before shutting down", pending.size());
+        }
+    }
+
+    private SessionDocument cache(final SessionDocument document) {
+        if (storeEnabled) {
+            documents.put(document.id, document);
+        }
+        return document;
+    }
 }
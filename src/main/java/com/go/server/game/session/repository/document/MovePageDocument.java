@@ -0,0 +1,69 @@
+package com.go.server.game.session.repository.document;
+
+import com.go.server.game.session.model.MoveList;
+import com.google.cloud.firestore.Blob;
+import com.google.cloud.firestore.annotation.DocumentId;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A full page of packed moves, stored in a subcollection of the session document under its page
+ * number. A page never changes once full, unless moves before its end are taken back.
+ */
+public class MovePageDocument {
+    public static String COLLECTION_NAME = "moves";
+    public static int MOVES_PER_PAGE = 64;
+    @DocumentId
+    public String id;
+    public Blob moves;
+
+    public MovePageDocument() {
+    }
+
+    public MovePageDocument(final int page, final MoveList moves) {
+        this.id = String.valueOf(page);
+        this.moves = Blob.fromBytes(moves.toBytes(page * MOVES_PER_PAGE, (page + 1) * MOVES_PER_PAGE));
+    }
+
+    public static int fullPages(final int moveCount) {
+        return moveCount / MOVES_PER_PAGE;
+    }
+
+    /**
+     * The full pages holding any of the moves from {@code from} on.
+     */
+    public static List<MovePageDocument> fromMoves(final MoveList moves, final int from) {
+        final var pages = new ArrayList<MovePageDocument>();
+        for (int page = from / MOVES_PER_PAGE; page < fullPages(moves.size()); page++) {
+            pages.add(new MovePageDocument(page, moves));
+        }
+        return pages;
+    }
+
+    /**
+     * The moves of the first {@code pageCount} pages. Pages after those are left from moves taken
+     * back and ignored.
+     */
+    public static MoveList toMoves(final List<MovePageDocument> pages, final int pageCount) {
+        final var moves = new MoveList();
+        final var sorted = pages.stream()
+                .sorted(Comparator.comparingInt(page -> Integer.parseInt(page.id)))
+                .toList();
+        for (final var page : sorted) {
+            final var number = Integer.parseInt(page.id);
+            if (number >= pageCount) {
+                break;
+            }
+            if (number * MOVES_PER_PAGE != moves.size()) {
+                throw new IllegalStateException("Move page " + number + " follows " + moves.size() + " moves");
+            }
+            moves.addBytes(page.moves.toBytes());
+        }
+        if (moves.size() != pageCount * MOVES_PER_PAGE) {
+            throw new IllegalStateException("Missing move pages, found " + moves.size() / MOVES_PER_PAGE + " of " + pageCount);
+        }
+        return moves;
+    }
+}
@@ -3,6 +3,7 @@ package com.go.server.game.session.repository.document;
 import com.go.server.game.session.model.Colors;
 import com.go.server.game.session.model.Player;
 
+import java.util.Objects;
 import java.util.UUID;
 
 public class PlayerDocument {
@@ -27,4 +28,17 @@ public class PlayerDocument {
         UUID uuid = UUID.fromString(document.id);
         return document.isBot ? Player.bot(uuid, document.color) : Player.human(uuid, document.color);
     }
+
+    @Override
+    public boolean equals(final Object other) {
+        return other instanceof PlayerDocument player
+                && Objects.equals(id, player.id)
+                && color == player.color
+                && isBot == player.isBot;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, color, isBot);
+    }
 }
@@ -1,36 +1,47 @@
 package com.go.server.game.session.repository.document;
 
 import com.go.server.game.session.model.BotDifficulty;
+import com.go.server.game.session.model.MoveList;
 import com.go.server.game.session.model.Session;
 import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.Blob;
 import com.google.cloud.firestore.annotation.DocumentId;
 import java.sql.Date;
 import java.time.Instant;
 import java.util.List;
+import java.util.Objects;
 
 public class SessionDocument {
     public static String COLLECTION_NAME = "sessions";
     public static String PLAYER_IDS_FIELD_NAME = "playerIds";
     public static String ID_FIELD_NAME = "id";
+    public static String UPDATED_FIELD_NAME = "updated";
+    public static String MOVE_COUNT_FIELD_NAME = "moveCount";
+    public static String MOVE_TAIL_FIELD_NAME = "moveTail";
     @DocumentId
     public String id;
     public List<PlayerDocument> players;
     public List<String> playerIds;
     public BotDifficulty difficulty;
     public Integer boardSize;
+    // Packed moves, see MoveList; documents written before only have the moves as strings
+    public Blob moveData;
     public List<String> moves;
+    // Headers of documents written in pages instead only hold the moves after the last full page, see MovePageDocument
+    public Integer moveCount;
+    public Blob moveTail;
     public Timestamp updated;
 
     public SessionDocument() {
     }
 
-    public SessionDocument(final String id, final List<PlayerDocument> players, final BotDifficulty difficulty, final Integer boardSize, final List<String> moves, final Instant updated) {
+    public SessionDocument(final String id, final List<PlayerDocument> players, final BotDifficulty difficulty, final Integer boardSize, final MoveList moves, final Instant updated) {
         this.id = id;
         this.players = players;
         this.playerIds = players.stream().map(player -> player.id).toList();
         this.difficulty = difficulty;
         this.boardSize = boardSize;
-        this.moves = moves;
+        this.moveData = Blob.fromBytes(moves.toBytes());
         this.updated = Timestamp.of(Date.from(updated));
     }
 
@@ -48,11 +59,57 @@ public class SessionDocument {
         int size = (document.boardSize == null || document.boardSize == 0) ? 19 : document.boardSize;
         session.setBoardSize(size);
         
-        if (document.moves != null) {
+        if (document.moveData != null) {
+            session.getMoves().addBytes(document.moveData.toBytes());
+        } else if (document.moves != null) {
             document.moves.forEach(session::addMove);
         }
         
         return session;
     }
 
+    /**
+     * Whether the moves of this document were stored in pages, so it was read as a header.
+     */
+    public boolean hasMovePages() {
+        return moveCount != null;
+    }
+
+    /**
+     * The document as written along with its move pages: everything but the moves of the full pages.
+     */
+    public SessionDocument toHeader(final MoveList moves) {
+        final var header = new SessionDocument();
+        header.id = id;
+        header.players = players;
+        header.playerIds = playerIds;
+        header.difficulty = difficulty;
+        header.boardSize = boardSize;
+        header.moveCount = moves.size();
+        header.moveTail = Blob.fromBytes(moves.toBytes(MovePageDocument.fullPages(moves.size()) * MovePageDocument.MOVES_PER_PAGE, moves.size()));
+        header.updated = updated;
+        return header;
+    }
+
+    /**
+     * Puts the moves of a header read back together with its pages.
+     */
+    public SessionDocument withPages(final List<MovePageDocument> pages) {
+        final var moves = MovePageDocument.toMoves(pages, MovePageDocument.fullPages(moveCount));
+        moves.addBytes(moveTail.toBytes());
+        if (moves.size() != moveCount) {
+            throw new IllegalStateException("Session " + id + " holds " + moves.size() + " of " + moveCount + " moves");
+        }
+        moveData = Blob.fromBytes(moves.toBytes());
+        return this;
+    }
+
+    /**
+     * Whether both documents differ in no more than their moves and when they were updated.
+     */
+    public boolean hasSameHeader(final SessionDocument other) {
+        return Objects.equals(players, other.players)
+                && difficulty == other.difficulty
+                && Objects.equals(boardSize, other.boardSize);
+    }
 }
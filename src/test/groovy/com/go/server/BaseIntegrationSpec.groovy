@@ -24,6 +24,7 @@ import org.springframework.web.socket.WebSocketHttpHeaders
 import org.springframework.web.socket.client.standard.StandardWebSocketClient
 import org.springframework.web.socket.messaging.WebSocketStompClient
 import jakarta.websocket.ContainerProvider
+import org.springframework.boot.test.web.server.LocalManagementPort
 import org.springframework.boot.test.web.server.LocalServerPort
 import org.springframework.messaging.simp.stomp.StompCommand
 import spock.lang.Shared
@@ -45,6 +46,8 @@ import java.util.concurrent.TimeUnit
     "GAME_CLIENT_SOCKET_PORT=8000",
     "gnugo.host=localhost",
     "gnugo.port=8001",
+    "game.session.verify-turns=true",
+    "game.bot.cache.prewarm.enabled=false",
     "spring.main.allow-bean-definition-overriding=true",
     "spring.cloud.gcp.project-id=local-project",
     "spring.cloud.gcp.core.credentials.enabled=false"
@@ -59,6 +62,13 @@ abstract class BaseIntegrationSpec extends Specification {
         return "http://127.0.0.1:${port}"
     }
 
+    @LocalManagementPort
+    protected int managementPort
+
+    protected String getManagementUrl() {
+        return "http://127.0.0.1:${managementPort}"
+    }
+
     protected String getWsUrl() {
         return "ws://127.0.0.1:${port}/"
     }
@@ -123,4 +123,14 @@ class AuthenticationFeatureSpec extends BaseIntegrationSpec {
         then: "An error is returned"
         error.code == "USER_NOT_FOUND"
     }
+
+    def "Metrics are only served on the management port"() {
+        when: "Scraping the metrics on the public port and on the management port"
+        def publicScrape = get("/actuator/prometheus")
+        def managementScrape = get(getManagementUrl() + "/actuator/prometheus")
+
+        then: "Only the management port answers"
+        publicScrape.status != 200
+        managementScrape.status == 200
+    }
 }
@@ -0,0 +1,69 @@
+package com.go.server.features.gameplay
+
+import com.go.server.BaseIntegrationSpec
+import com.go.server.game.session.repository.SessionRepository
+import io.micrometer.core.instrument.MeterRegistry
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.test.context.TestPropertySource
+import spock.lang.Shared
+
+// Flushed by the test only, so the writes behind do not depend on timing
+@TestPropertySource(properties = ["game.session.store.flush-interval=600000"])
+class SessionPersistenceFeatureSpec extends BaseIntegrationSpec {
+
+    private static final List<String> OPERATIONS = ["read", "query", "write", "delete"]
+
+    @Autowired
+    MeterRegistry meterRegistry
+
+    @Autowired
+    SessionRepository sessionRepository
+
+    @Shared TestUser userA
+    @Shared TestUser userB
+
+    def setup() {
+        userA = registerUser(createUsername())
+        connect(userA)
+        userB = registerUser(createUsername())
+        connect(userB)
+    }
+
+    def "A game between humans is written to Firestore once per flush rather than once per move"() {
+        given: "A running 9x9 game between two humans"
+        def game = createGame(userA, 9)
+        joinGame(userB, game.id)
+        def sessionId = UUID.fromString(game.id)
+        def before = firestoreCalls()
+
+        when: "Ten moves are played"
+        (0..4).each { column ->
+            playMove(userA, sessionId, column, 0)
+            playMove(userB, sessionId, column, 2)
+        }
+        def played = firestoreCalls()
+
+        and: "The session is written behind"
+        sessionRepository.flush()
+        def flushed = firestoreCalls()
+
+        then: "The moves were served from memory without any Firestore call"
+        difference(before, played) == [read: 0d, query: 0d, write: 0d, delete: 0d]
+
+        and: "The flush wrote the session header once, the moves being short of a full page"
+        difference(played, flushed) == [read: 0d, query: 0d, write: 1d, delete: 0d]
+
+        and: "The stored session holds all ten moves"
+        sessionRepository.getSession(game.id).moves.size() == 10
+    }
+
+    private Map<String, Double> firestoreCalls() {
+        OPERATIONS.collectEntries { operation ->
+            [(operation): meterRegistry.get("game.session.firestore.calls").tags("operation", operation).counter().count()]
+        }
+    }
+
+    private static Map<String, Double> difference(Map<String, Double> from, Map<String, Double> to) {
+        OPERATIONS.collectEntries { operation -> [(operation): to[operation] - from[operation]] }
+    }
+}
@@ -0,0 +1,38 @@
+package com.go.server.game.engine
+
+import com.go.server.game.session.model.BotDifficulty
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.time.Duration
+
+class BotStrengthPolicySpec extends Specification {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry()
+    BotStrengthPolicy policy = new BotStrengthPolicy(registry, 2000, 10000)
+
+    def "The level is kept while bot moves wait within the SLO"() {
+        when: "Bot moves wait below the SLO"
+        10.times { policy.recordQueueWait(Duration.ofMillis(1500)) }
+
+        then: "The requested level is used"
+        policy.effectiveLevel(BotDifficulty.HARD, 20) == 20
+        registry.find("game.bot.downgrades").counter() == null
+    }
+
+    def "The level drops with the queue wait and recovers once the queue drained"() {
+        given: "Bot moves that waited far beyond the SLO"
+        20.times { policy.recordQueueWait(Duration.ofSeconds(40)) }
+
+        expect: "The level is lowered down to the minimum"
+        policy.effectiveLevel(BotDifficulty.HARD, 20) == 1
+        policy.effectiveLevel(BotDifficulty.EASY, 1) == 1
+        registry.get("game.bot.downgrades").tags("difficulty", "hard").counter().count() == 1
+
+        when: "Bot moves are picked up right away again"
+        30.times { policy.recordQueueWait(Duration.ZERO) }
+
+        then: "The requested level is used again"
+        policy.effectiveLevel(BotDifficulty.HARD, 20) == 20
+    }
+}
@@ -0,0 +1,154 @@
+package com.go.server.game.engine
+
+import com.go.server.game.engine.exception.EngineUnavailableException
+import com.go.server.game.model.DeviceMove
+import com.go.server.game.session.model.Session
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.*
+
+class DelegatingAsyncGameEngineSpec extends Specification {
+
+    GameEngine gameEngine = Mock()
+    EngineWorkScheduler scheduler = new EngineWorkScheduler(new SimpleMeterRegistry(), Mock(BotStrengthPolicy), 1, 1, 1)
+    DelegatingAsyncGameEngine engine = new DelegatingAsyncGameEngine(gameEngine, scheduler)
+    Session session = new Session(Instant.now(), null, 9)
+
+    def cleanup() {
+        engine.close()
+        scheduler.close()
+    }
+
+    def "Engine calls run on the worker pool"() {
+        given:
+        def caller = Thread.currentThread()
+        Thread worker = null
+        gameEngine.generateMoveAsync(session) >> {
+            worker = Thread.currentThread()
+            CompletableFuture.completedFuture(Optional.of(DeviceMove.at(1, 1)))
+        }
+
+        when:
+        def move = engine.generateMove(session, Duration.ofSeconds(5)).get(5, TimeUnit.SECONDS)
+
+        then:
+        move.get().x == 1
+        worker != caller
+    }
+
+    def "A bot move does not hold the worker while the engine thinks"() {
+        given: "A move the engine has not answered yet"
+        def thinking = new CompletableFuture<Optional<DeviceMove>>()
+        gameEngine.generateMoveAsync(session) >> thinking
+        def move = engine.generateMove(session, Duration.ofSeconds(5))
+
+        when: "Another call needs the only worker"
+        def state = engine.getScore(session, Duration.ofSeconds(5)).get(5, TimeUnit.SECONDS)
+
+        then: "It runs right away and the move completes with the engine"
+        state == null
+        !move.done
+
+        when:
+        thinking.complete(Optional.of(DeviceMove.at(2, 2)))
+
+        then:
+        move.get(5, TimeUnit.SECONDS).get().x == 2
+    }
+
+    def "Callers do not continue on the thread that answered the engine"() {
+        given: "A move the engine is thinking about"
+        def thinking = new CompletableFuture<Optional<DeviceMove>>()
+        def started = new CountDownLatch(1)
+        gameEngine.generateMoveAsync(session) >> {
+            started.countDown()
+            thinking
+        }
+        Thread continued = null
+        def move = engine.generateMove(session, Duration.ofSeconds(5)).thenApply {
+            continued = Thread.currentThread()
+            it
+        }
+        assert started.await(5, TimeUnit.SECONDS)
+
+        when: "The answer arrives on an I/O thread"
+        def io = Thread.start("gtp-io-1") { thinking.complete(Optional.of(DeviceMove.at(3, 3))) }
+        io.join()
+
+        then:
+        move.get(5, TimeUnit.SECONDS).get().x == 3
+        continued != io
+        continued.virtual
+    }
+
+    def "A call past its deadline fails and its worker is interrupted"() {
+        given: "An engine call that blocks until interrupted"
+        def interrupted = new CountDownLatch(1)
+        gameEngine.getGameState(session) >> {
+            try {
+                Thread.sleep(10000)
+            } catch (InterruptedException ignored) {
+                interrupted.countDown()
+            }
+            null
+        }
+
+        when:
+        engine.getGameState(session, Duration.ofMillis(100)).get(5, TimeUnit.SECONDS)
+
+        then:
+        def error = thrown(ExecutionException)
+        error.cause instanceof TimeoutException
+        interrupted.await(5, TimeUnit.SECONDS)
+    }
+
+    def "A cancelled call never reaches the engine"() {
+        given: "A worker busy with another call"
+        def release = new CountDownLatch(1)
+        gameEngine.getScore(session) >> {
+            release.await()
+            null
+        }
+        def busy = engine.getScore(session, Duration.ofSeconds(5))
+        new PollingConditions(timeout: 5).eventually {
+            assert scheduler.getQueueSize(EnginePriority.SCORE) == 0
+        }
+
+        when: "A queued call is cancelled"
+        engine.generateMove(session, Duration.ofSeconds(5)).cancel(true)
+        release.countDown()
+        busy.get(5, TimeUnit.SECONDS)
+        engine.getGameState(session, Duration.ofSeconds(5)).get(5, TimeUnit.SECONDS)
+
+        then:
+        0 * gameEngine.generateMoveAsync(_)
+    }
+
+    def "A full work queue fails fast"() {
+        given: "A busy worker and a full queue for game states"
+        def release = new CountDownLatch(1)
+        gameEngine.getScore(session) >> {
+            release.await()
+            null
+        }
+        def busy = engine.getScore(session, Duration.ofSeconds(5))
+        new PollingConditions(timeout: 5).eventually {
+            assert scheduler.getQueueSize(EnginePriority.SCORE) == 0
+        }
+        engine.getGameState(session, Duration.ofSeconds(5))
+
+        when:
+        engine.getGameState(session, Duration.ofSeconds(5)).join()
+
+        then:
+        def error = thrown(CompletionException)
+        error.cause instanceof EngineUnavailableException
+
+        cleanup:
+        release.countDown()
+    }
+}
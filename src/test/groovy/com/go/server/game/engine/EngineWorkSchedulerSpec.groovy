@@ -0,0 +1,139 @@
+package com.go.server.game.engine
+
+import com.go.server.game.session.model.BotDifficulty
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+
+class EngineWorkSchedulerSpec extends Specification {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry()
+    BotStrengthPolicy strengthPolicy = new BotStrengthPolicy(registry, 50, 0)
+    EngineWorkScheduler scheduler = new EngineWorkScheduler(registry, strengthPolicy, 1, 8, 1)
+    CountDownLatch release = new CountDownLatch(1)
+    List<String> ran = new CopyOnWriteArrayList<>()
+
+    def cleanup() {
+        release.countDown()
+        scheduler.close()
+    }
+
+    private void blockWorker() {
+        def started = new CountDownLatch(1)
+        scheduler.submit(EnginePriority.ANALYSIS, "blocker", "blocker", {
+            started.countDown()
+            release.await()
+        })
+        started.await(5, TimeUnit.SECONDS)
+    }
+
+    private void runQueued(int count) {
+        release.countDown()
+        new PollingConditions(timeout: 5).eventually {
+            assert ran.size() == count
+        }
+    }
+
+    def "Cheap work overtakes expensive work without starving it"() {
+        given: "A busy worker"
+        blockWorker()
+
+        when: "Bot moves are queued before game states"
+        3.times { i -> scheduler.submit(EnginePriority.BOT_MOVE, "user-$i", "session-$i", { ran << "bot" }) }
+        3.times { i -> scheduler.submit(EnginePriority.STATE, "user-$i", "session-$i", { ran << "state" }) }
+        runQueued(6)
+
+        then: "Game states ran first, but a bot move was interleaved by weight"
+        ran == ["state", "state", "bot", "state", "bot", "bot"]
+    }
+
+    def "Sessions take turns within a priority class"() {
+        given: "A busy worker"
+        blockWorker()
+
+        when: "One session queues three moves before another session queues one"
+        3.times { scheduler.submit(EnginePriority.MOVE, "user", "busy", { ran << "busy" }) }
+        scheduler.submit(EnginePriority.MOVE, "user", "quiet", { ran << "quiet" })
+        runQueued(4)
+
+        then: "The quiet session did not wait for all moves of the busy one"
+        ran == ["busy", "quiet", "busy", "busy"]
+    }
+
+    def "Users take turns within a priority class before their sessions do"() {
+        given: "A busy worker"
+        blockWorker()
+
+        when: "One user queues a move in each of three sessions before another user queues one"
+        3.times { i -> scheduler.submit(EnginePriority.MOVE, "busy", "session-$i", { ran << "busy-$i".toString() }) }
+        scheduler.submit(EnginePriority.MOVE, "quiet", "session", { ran << "quiet" })
+        runQueued(4)
+
+        then: "The quiet user did not wait for all sessions of the busy one"
+        ran == ["busy-0", "quiet", "busy-1", "busy-2"]
+    }
+
+    def "Analysis work is held to its workers while other work goes ahead"() {
+        given: "Two workers, one of them busy with analysis"
+        scheduler.close()
+        scheduler = new EngineWorkScheduler(registry, strengthPolicy, 2, 8, 1)
+        blockWorker()
+
+        when: "More analysis is queued before a move"
+        scheduler.submit(EnginePriority.ANALYSIS, "user", "session", { ran << "analysis" })
+        scheduler.submit(EnginePriority.MOVE, "user", "session", { ran << "move" })
+
+        then: "The move runs on the spare worker and the analysis waits for the busy one"
+        new PollingConditions(timeout: 5).eventually {
+            assert ran == ["move"]
+        }
+        scheduler.getQueueSize(EnginePriority.ANALYSIS) == 1
+
+        when:
+        release.countDown()
+
+        then:
+        new PollingConditions(timeout: 5).eventually {
+            assert ran == ["move", "analysis"]
+        }
+    }
+
+    def "Bot moves waiting for a worker lower the bot level"() {
+        given: "A busy worker"
+        blockWorker()
+
+        when: "Bot moves queue up well beyond the wait SLO"
+        3.times { i -> scheduler.submit(EnginePriority.BOT_MOVE, "user-$i", "session-$i", { ran << "bot" }) }
+        Thread.sleep(300)
+        runQueued(3)
+
+        then: "The next bot move is played at a lower level"
+        strengthPolicy.effectiveLevel(BotDifficulty.HARD, 20) < 20
+        registry.get("game.bot.downgrades").tags("difficulty", "hard").counter().count() == 1
+    }
+
+    def "A full priority class rejects work while other classes still accept it"() {
+        given: "A busy worker and a full queue for scoring"
+        blockWorker()
+        8.times { scheduler.submit(EnginePriority.SCORE, "user", "session", {}) }
+
+        when:
+        scheduler.submit(EnginePriority.SCORE, "user", "session", {})
+
+        then:
+        thrown(RejectedExecutionException)
+        registry.get("game.engine.rejected").tag("priority", "score").counter().count() == 1
+
+        when:
+        scheduler.submit(EnginePriority.STATE, "user", "session", {})
+
+        then:
+        notThrown(RejectedExecutionException)
+        scheduler.getQueueSize(EnginePriority.STATE) == 1
+    }
+}
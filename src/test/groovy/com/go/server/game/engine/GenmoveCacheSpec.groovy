@@ -0,0 +1,89 @@
+package com.go.server.game.engine
+
+import com.go.server.game.session.model.BotDifficulty
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Path
+import java.time.Duration
+
+class GenmoveCacheSpec extends Specification {
+
+    @TempDir
+    Path directory
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry()
+
+    private GenmoveCache newCache(int maxEntries, Optional<Path> file = Optional.empty()) {
+        return new GenmoveCache(registry, maxEntries, [(BotDifficulty.HARD): GenmoveCachePolicy.OPENING], 2, file)
+    }
+
+    def "Moves are cached per size, position and difficulty"() {
+        given:
+        def cache = newCache(10)
+        cache.store(9, 42L, 0, BotDifficulty.EASY, "E5", Duration.ofSeconds(2))
+
+        expect:
+        cache.lookup(9, 42L, 0, BotDifficulty.EASY) == Optional.of("E5")
+        cache.lookup(9, 42L, 0, BotDifficulty.MEDIUM).isEmpty()
+        cache.lookup(13, 42L, 0, BotDifficulty.EASY).isEmpty()
+        cache.lookup(9, 43L, 0, BotDifficulty.EASY).isEmpty()
+
+        and: "Hits, misses and the saved engine time are counted"
+        registry.get("game.bot.cache.hits").tag("difficulty", "easy").counter().count() == 1
+        registry.get("game.bot.cache.misses").tag("difficulty", "easy").counter().count() == 2
+        registry.get("game.bot.cache.saved.engine.time").counter().count() == 2.0d
+    }
+
+    def "The opening policy only caches early moves"() {
+        given:
+        def cache = newCache(10)
+
+        when:
+        cache.store(9, 1L, 1, BotDifficulty.HARD, "E5", Duration.ZERO)
+        cache.store(9, 2L, 2, BotDifficulty.HARD, "D4", Duration.ZERO)
+
+        then:
+        cache.lookup(9, 1L, 1, BotDifficulty.HARD) == Optional.of("E5")
+        cache.size() == 1
+    }
+
+    def "The least recently used entry is evicted"() {
+        given: "A full cache where the first entry was used last"
+        def cache = newCache(2)
+        cache.store(9, 1L, 0, BotDifficulty.EASY, "A1", Duration.ZERO)
+        cache.store(9, 2L, 0, BotDifficulty.EASY, "B1", Duration.ZERO)
+        cache.lookup(9, 1L, 0, BotDifficulty.EASY)
+
+        when:
+        cache.store(9, 3L, 0, BotDifficulty.EASY, "C1", Duration.ZERO)
+
+        then:
+        cache.lookup(9, 1L, 0, BotDifficulty.EASY).present
+        cache.lookup(9, 2L, 0, BotDifficulty.EASY).isEmpty()
+        registry.get("game.bot.cache.evictions").counter().count() == 1
+    }
+
+    def "Cached moves survive a restart"() {
+        given:
+        def file = Optional.of(directory.resolve("genmove.cache"))
+        def cache = newCache(10, file)
+        cache.store(19, -7L, 0, BotDifficulty.MEDIUM, "Q16", Duration.ofMillis(500))
+
+        when:
+        cache.save()
+        def restarted = newCache(10, file)
+        restarted.load()
+
+        then:
+        restarted.lookup(19, -7L, 0, BotDifficulty.MEDIUM) == Optional.of("Q16")
+    }
+
+    def "Openings cover the empty board and the star points"() {
+        expect:
+        GenmoveCacheWarmer.openings(9).size() == 6
+        GenmoveCacheWarmer.openings(19).size() == 10
+        GenmoveCacheWarmer.openings(9)[1] == ["C7"]
+    }
+}
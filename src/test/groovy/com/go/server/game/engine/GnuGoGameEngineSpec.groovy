@@ -0,0 +1,468 @@
+package com.go.server.game.engine
+
+import com.go.server.game.engine.gtp.FakeGtpServer
+import com.go.server.game.engine.gtp.GtpBackend
+import com.go.server.game.engine.gtp.GtpBackendRouter
+import com.go.server.game.engine.gtp.GtpBoardBindings
+import com.go.server.game.engine.gtp.GtpConnectionPool
+import com.go.server.game.model.DeviceMove
+import com.go.server.game.model.ScoringRules
+import com.go.server.game.session.model.BotDifficulty
+import com.go.server.game.session.model.Colors
+import com.go.server.game.session.model.Player
+import com.go.server.game.session.model.Session
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.TimeUnit
+
+class GnuGoGameEngineSpec extends Specification {
+
+    @AutoCleanup
+    FakeGtpServer server = new FakeGtpServer()
+
+    GenmoveCache genmoveCache = new GenmoveCache(new SimpleMeterRegistry(), 100, [:], 12, Optional.empty())
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    GnuGoMetrics metrics = new GnuGoMetrics(meterRegistry)
+
+    BotStrengthPolicy strengthPolicy = new BotStrengthPolicy(meterRegistry, 2000, 5000)
+
+    GtpConnectionPool connectionPool = new GtpConnectionPool({ server.connect() }, 0, 4, Duration.ofMinutes(5), Duration.ofSeconds(1), Duration.ofMinutes(5), "protocol_version")
+
+    GtpBackendRouter pool = new GtpBackendRouter([new GtpBackend("fake", connectionPool, 3, Duration.ofSeconds(30))], "protocol_version")
+
+    EngineWorkScheduler workScheduler = new EngineWorkScheduler(meterRegistry, strengthPolicy, 2, 16, 1)
+
+    Ponderer ponderer = new Ponderer(meterRegistry, metrics, workScheduler, false, 3, 1)
+
+    GameScorer scorer = new GameScorer(ScoringRules.TERRITORY, 5.5)
+
+    WarmBoardPool warmBoards = new WarmBoardPool(pool, meterRegistry, false, [9] as int[], 1, 2, 30000, 5.5)
+
+    def cleanup() {
+        ponderer.close()
+        workScheduler.close()
+        warmBoards.close()
+    }
+
+    private GnuGoGameEngine engine(boolean sessionAffinity) {
+        return new GnuGoGameEngine(pool, new GtpBoardBindings(pool, 4, 60000), new SessionBoardCache(16), genmoveCache, metrics, strengthPolicy, ponderer, warmBoards, scorer, sessionAffinity, true)
+    }
+
+    private Session session() {
+        def session = new Session(Instant.now(), null, 9)
+        session.addPlayer(Player.human(UUID.randomUUID(), Colors.BLACK))
+        session.addPlayer(Player.human(UUID.randomUUID(), Colors.WHITE))
+        return session
+    }
+
+    private Session session(List<String> moves) {
+        def session = session()
+        moves.each { session.addMove(it) }
+        return session
+    }
+
+    private List<String> commands(String prefix) {
+        return server.commands.findAll { it.startsWith(prefix) }
+    }
+
+    def "Moves are applied incrementally to a session bound board"() {
+        given: "An engine with session affinity"
+        def engine = engine(true)
+        def session = session()
+
+        when: "Three moves are played"
+        engine.processMove(session, DeviceMove.at(2, 2))
+        engine.processMove(session, DeviceMove.at(3, 3))
+        engine.processMove(session, DeviceMove.at(4, 4))
+
+        then: "The board was set up once and every move was sent once"
+        commands("boardsize").size() == 1
+        commands("play").size() == 3
+        session.moves == ["C7", "D6", "E5"]
+    }
+
+    def "The board is replayed when the session moved on elsewhere"() {
+        given: "An engine with session affinity and a bound session"
+        def engine = engine(true)
+        def session = session()
+        engine.processMove(session, DeviceMove.at(2, 2))
+
+        and: "The same session loaded with a different history"
+        def diverged = new Session(session.id, Instant.now(), session.players)
+        diverged.boardSize = 9
+        diverged.addMove("A1")
+
+        when: "The diverged session is queried"
+        engine.getGameState(diverged)
+
+        then: "The board was set up again"
+        commands("boardsize").size() == 2
+        commands("play") == ["play black C7", "play black A1"]
+    }
+
+    def "A bound board that rejects a replayed move is set up again"() {
+        given: "An engine with session affinity and a bound session"
+        def engine = engine(true)
+        def session = session()
+        engine.processMove(session, DeviceMove.at(2, 2))
+
+        and: "A move added elsewhere that the bound board rejects once"
+        session.addMove("D6")
+        def rejected = false
+        server.handler = { String command ->
+            if (command == "play white D6" && !rejected) {
+                rejected = true
+                return "? illegal move\n\n"
+            }
+            return "= \n\n"
+        }
+
+        when: "The session is queried"
+        engine.getGameState(session)
+
+        then: "The failed delta was followed by a full replay"
+        commands("boardsize").size() == 2
+        commands("play") == ["play black C7", "play white D6", "play black C7", "play white D6"]
+    }
+
+    def "A bound board whose connection died while idle is set up again on another connection"() {
+        given: "An engine with session affinity and a bound session"
+        def engine = engine(true)
+        def session = session()
+        engine.processMove(session, DeviceMove.at(2, 2))
+
+        when: "The engine drops the connection and the next move is played"
+        server.sockets.each { it.close() }
+        engine.processMove(session, DeviceMove.at(3, 3))
+
+        then: "The game was replayed on a new connection"
+        server.connections.get() == 2
+        commands("boardsize").size() == 2
+        session.moves == ["C7", "D6"]
+    }
+
+    def "A call failing on a bound connection is retried once with a full replay"() {
+        given: "An engine with session affinity and a bound session"
+        def engine = engine(true)
+        def session = session()
+        engine.processMove(session, DeviceMove.at(2, 2))
+
+        and: "An engine dropping the connection on the next move"
+        def dropped = false
+        server.handler = { String command ->
+            if (command == "play white D6" && !dropped) {
+                dropped = true
+                server.sockets.each { it.close() }
+            }
+            return "= \n\n"
+        }
+
+        when:
+        def game = engine.processMove(session, DeviceMove.at(3, 3))
+
+        then: "The move was played on a new connection after setting up the game again"
+        game != null
+        dropped
+        commands("boardsize").size() == 2
+        commands("play") == ["play black C7", "play white D6", "play black C7", "play white D6"]
+        session.moves == ["C7", "D6"]
+    }
+
+    def "A bot move failing on a bound connection is retried once with a full replay"() {
+        given: "An engine with session affinity and a bound bot session"
+        def engine = engine(true)
+        def session = session(["C7"])
+        session.setDifficulty(BotDifficulty.EASY)
+        engine.processMove(session, DeviceMove.at(3, 3))
+
+        and: "An engine dropping the connection on the first genmove"
+        def dropped = false
+        server.handler = { String command ->
+            if (command.startsWith("reg_genmove") && !dropped) {
+                dropped = true
+                server.sockets.each { it.close() }
+            }
+            return command.startsWith("reg_genmove") ? "= E5\n\n" : "= \n\n"
+        }
+
+        when:
+        def move = engine.generateMoveAsync(session).get(5, TimeUnit.SECONDS)
+
+        then: "The move was generated on a new connection after setting up the game again"
+        move.present
+        dropped
+        commands("boardsize").size() == 2
+        commands("reg_genmove").size() == 2
+
+        cleanup:
+        engine.close()
+    }
+
+    def "Moves are taken back on a session bound board with GTP undo"() {
+        given: "An engine with session affinity and three moves played"
+        def engine = engine(true)
+        def session = session()
+        engine.processMove(session, DeviceMove.at(2, 2))
+        engine.processMove(session, DeviceMove.at(3, 3))
+        engine.processMove(session, DeviceMove.at(4, 4))
+
+        when: "Two moves are taken back and another one is played"
+        engine.undoMoves(session, 2)
+        engine.processMove(session, DeviceMove.at(5, 5))
+
+        then: "The board was never set up again"
+        commands("boardsize").size() == 1
+        commands("undo").size() == 2
+        commands("play") == ["play black C7", "play white D6", "play black E5", "play white F4"]
+        session.moves == ["C7", "F4"]
+    }
+
+    def "Moves placed as stones are not taken back with GTP undo"() {
+        given: "An engine with session affinity bound to a board set up from stones"
+        def engine = engine(true)
+        def session = session(["C7", "D6"])
+        engine.getGameState(session)
+
+        when:
+        engine.undoMoves(session, 1)
+
+        then: "The shorter game was set up again"
+        commands("undo").isEmpty()
+        commands("boardsize").size() == 2
+        commands("play") == ["play black C7", "play white D6", "play black C7"]
+        session.moves == ["C7"]
+    }
+
+    def "Without session affinity every call replays the game"() {
+        given: "An engine without session affinity"
+        def engine = engine(false)
+        def session = session()
+
+        when: "Two moves are played"
+        engine.processMove(session, DeviceMove.at(2, 2))
+        engine.processMove(session, DeviceMove.at(3, 3))
+
+        then: "The first move was replayed for the second call"
+        commands("boardsize").size() == 2
+        commands("play").size() == 3
+    }
+
+    def "The board is set up from the stones left after captures"() {
+        given: "An engine without session affinity and a game where Black captured A9"
+        def engine = engine(false)
+        def session = session(["B9", "A9", "A8"])
+
+        when:
+        engine.getGameState(session)
+
+        then: "Only the remaining stones were played"
+        commands("play") == ["play black B9", "play black A8"]
+    }
+
+    def "A position with an active ko is replayed move by move"() {
+        given: "An engine without session affinity and a game where Black just took a ko"
+        def engine = engine(false)
+        def session = session(["B9", "C9", "A8", "D8", "B7", "C7", "J1", "B8", "C8"])
+
+        when:
+        engine.getGameState(session)
+
+        then: "The full history was replayed"
+        commands("play").size() == 9
+    }
+
+    def "Scoring counts prisoners in-process on a board set up from stones"() {
+        given: "An engine with session affinity bound to a board set up after Black captured A9"
+        def engine = engine(true)
+        def session = session(["B9", "A9", "A8"])
+        engine.getGameState(session)
+
+        when:
+        def endGame = engine.getScore(session)
+
+        then: "Only the dead stones were asked for on the bound board"
+        commands("boardsize").size() == 1
+        commands("final_status_list") == ["final_status_list dead"]
+        commands("final_score").isEmpty()
+
+        and: "Black's territory and prisoner beat the komi"
+        endGame.score == 79 + 1 - 5.5
+        endGame.winners*.color == [Colors.BLACK]
+    }
+
+    def "Stones GnuGo lists as dead count for the opponent"() {
+        given: "An engine that finds the White stone dead"
+        server.handler = { String command -> command == "final_status_list dead" ? "= E5\n\n" : "= \n\n" }
+        def engine = engine(true)
+        def session = session(["C7", "E5"])
+
+        when:
+        def endGame = engine.getScore(session)
+
+        then: "Black owns the board and took the stone"
+        endGame.score == 80 + 1 - 5.5
+        endGame.winners*.color == [Colors.BLACK]
+    }
+
+    def "Generated bot moves are reused for the same position"() {
+        given: "An engine answering every genmove with E5"
+        server.handler = { String command -> command.startsWith("reg_genmove") ? "= E5\n\n" : "= \n\n" }
+        def engine = engine(true)
+
+        when: "Two sessions reach the same position"
+        def first = engine.generateMove(session(["C7"]))
+        def second = engine.generateMove(session(["C7"]))
+
+        then: "GnuGo was asked once"
+        [first.get().x, first.get().y] == [4, 4]
+        [second.get().x, second.get().y] == [4, 4]
+        commands("reg_genmove").size() == 1
+    }
+
+    def "Engine calls and GTP batches are metered"() {
+        given: "An engine with session affinity"
+        def engine = engine(true)
+        def session = session()
+
+        when: "Two moves are played and the score is requested after the engine went away"
+        engine.processMove(session, DeviceMove.at(2, 2))
+        engine.processMove(session, DeviceMove.at(3, 3))
+        def positionSetups = meterRegistry.get("game.engine.board.setup").tags("mode", "position").summary().count()
+        server.close()
+        engine.getScore(session)
+
+        then: "The moves were timed by operation and command"
+        thrown(RuntimeException)
+        meterRegistry.get("game.engine.call").tags("operation", "process_move", "size", "9", "outcome", "success").timer().count() == 2
+
+        and: "The batch that set up the board is kept apart from the incremental move"
+        meterRegistry.get("game.engine.gtp.command").tags("command", "play", "setup", "true").timer().count() == 1
+        meterRegistry.get("game.engine.gtp.command").tags("command", "play", "setup", "false").timer().count() == 1
+        positionSetups == 1
+
+        and: "The failed score call was counted as an engine error"
+        meterRegistry.get("game.engine.errors").tags("operation", "score").counter().count() == 1
+        meterRegistry.get("game.engine.calls.active").gauge().value() == 0
+    }
+
+    def "Bot moves are time bounded and lose strength while the bot queue is over its SLO"() {
+        given: "An engine answering every genmove with E5"
+        server.handler = { String command -> command.startsWith("reg_genmove") ? "= E5\n\n" : "= \n\n" }
+        def engine = engine(true)
+        def session = session(["C7"])
+        session.setDifficulty(BotDifficulty.HARD)
+
+        when: "Bot moves waited four times the SLO"
+        20.times { strengthPolicy.recordQueueWait(Duration.ofSeconds(8)) }
+        def move = engine.generateMove(session)
+
+        then: "GnuGo got the move time and a lowered level"
+        move.present
+        commands("time_settings") == ["time_settings 0 5 1"]
+        commands("time_left") == ["time_left white 5 1"]
+        commands("level") == ["level 5"]
+        meterRegistry.get("game.bot.downgrades").tags("difficulty", "hard").counter().count() == 1
+
+        and: "The weaker move was not cached for the hard bot"
+        genmoveCache.size() == 0
+    }
+
+    def "Bot replies pondered while the human thinks are used without asking GnuGo"() {
+        given: "A pondering engine with a bot playing black against a human"
+        ponderer = new Ponderer(meterRegistry, metrics, workScheduler, true, 2, 1)
+        def engine = engine(true)
+        def session = new Session(Instant.now(), BotDifficulty.EASY, 9)
+        session.addPlayer(Player.bot(UUID.randomUUID(), Colors.BLACK))
+        session.addPlayer(Player.human(UUID.randomUUID(), Colors.WHITE))
+
+        and: "GnuGo expects D6 or E5 from the human and answers every genmove with C3"
+        server.handler = { String command ->
+            if (command == "top_moves_white") return "= D6 12.5 E5 10.0 F4 3.0\n\n"
+            if (command.startsWith("reg_genmove")) return "= C3\n\n"
+            return "= \n\n"
+        }
+
+        when: "The bot plays and the human answers with a pondered move"
+        engine.processMove(session, DeviceMove.at(2, 2))
+        new PollingConditions(timeout: 5).eventually {
+            assert commands("undo").size() == 2
+        }
+        engine.processMove(session, DeviceMove.at(4, 4))
+        def reply = engine.generateMove(session)
+
+        then: "The pondered reply is played and GnuGo generated only the two pondered replies"
+        [reply.get().x, reply.get().y] == [2, 6]
+        commands("reg_genmove") == ["reg_genmove black", "reg_genmove black"]
+        meterRegistry.get("game.bot.ponder.hits").counter().count() == 1
+        meterRegistry.get("game.bot.ponder.wasted").timer().count() == 1
+
+        and: "The pondering batches were metered like engine calls"
+        meterRegistry.get("game.engine.gtp.command").tags("command", "top_moves_white", "setup", "true").timer().count() == 1
+        meterRegistry.get("game.engine.gtp.command").tags("command", "reg_genmove", "setup", "false").timer().count() == 2
+    }
+
+    def "A candidate GnuGo rejects is skipped without taking back the position"() {
+        given: "A pondering engine with a bot playing black against a human"
+        ponderer = new Ponderer(meterRegistry, metrics, workScheduler, true, 2, 1)
+        def engine = engine(true)
+        def session = new Session(Instant.now(), BotDifficulty.EASY, 9)
+        session.addPlayer(Player.bot(UUID.randomUUID(), Colors.BLACK))
+        session.addPlayer(Player.human(UUID.randomUUID(), Colors.WHITE))
+
+        and: "GnuGo suggests D6 and E5 for the human but refuses to play D6"
+        server.handler = { String command ->
+            if (command == "top_moves_white") return "= D6 12.5 E5 10.0\n\n"
+            if (command == "play white D6") return "? illegal move\n\n"
+            if (command.startsWith("reg_genmove")) return "= C3\n\n"
+            return "= \n\n"
+        }
+
+        when: "The bot plays and the human answers with the other candidate"
+        engine.processMove(session, DeviceMove.at(2, 2))
+        new PollingConditions(timeout: 5).eventually {
+            assert commands("undo").size() == 1
+        }
+        engine.processMove(session, DeviceMove.at(4, 4))
+        def reply = engine.generateMove(session)
+
+        then: "Only the played candidate was answered and taken back, and its reply is used"
+        commands("reg_genmove") == ["reg_genmove black"]
+        commands("undo").size() == 1
+        [reply.get().x, reply.get().y] == [2, 6]
+        meterRegistry.get("game.bot.ponder.hits").counter().count() == 1
+    }
+
+    def "Nothing is pondered while bot moves lose strength"() {
+        given: "A pondering engine with a medium bot playing black against a human"
+        ponderer = new Ponderer(meterRegistry, metrics, workScheduler, true, 2, 1)
+        def engine = engine(true)
+        def session = new Session(Instant.now(), BotDifficulty.MEDIUM, 9)
+        session.addPlayer(Player.bot(UUID.randomUUID(), Colors.BLACK))
+        session.addPlayer(Player.human(UUID.randomUUID(), Colors.WHITE))
+        server.handler = { String command -> command.startsWith("reg_genmove") ? "= C3\n\n" : "= \n\n" }
+
+        and: "Bot moves waited four times the SLO"
+        20.times { strengthPolicy.recordQueueWait(Duration.ofSeconds(8)) }
+
+        when: "The bot plays and the human answers"
+        engine.processMove(session, DeviceMove.at(2, 2))
+        Thread.sleep(200)
+        engine.processMove(session, DeviceMove.at(4, 4))
+        def reply = engine.generateMove(session)
+
+        then: "GnuGo was never asked for candidates and the bot move was generated at the lowered level"
+        reply.present
+        commands("top_moves").isEmpty()
+        commands("level") == ["level 2"]
+
+        and: "Only the generated move counts as downgraded"
+        meterRegistry.get("game.bot.downgrades").tags("difficulty", "medium").counter().count() == 1
+    }
+}
@@ -0,0 +1,124 @@
+package com.go.server.game.engine
+
+import com.go.server.game.model.DeviceMove
+import com.go.server.game.model.ScoringRules
+import com.go.server.game.model.StoneState
+import com.go.server.game.session.exception.InvalidMoveException
+import com.go.server.game.session.model.BotDifficulty
+import com.go.server.game.session.model.Colors
+import com.go.server.game.session.model.Player
+import com.go.server.game.session.model.Session
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.time.Instant
+
+class NativeGameEngineSpec extends Specification {
+
+    GnuGoGameEngine gnuGo = Mock()
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+    NativeGameEngine engine = new NativeGameEngine(gnuGo, new SessionBoardCache(16), new GnuGoMetrics(meterRegistry), new GameScorer(ScoringRules.TERRITORY, 5.5))
+
+    private static Session session() {
+        def session = new Session(Instant.now(), null, 9)
+        session.addPlayer(Player.human(UUID.randomUUID(), Colors.BLACK))
+        session.addPlayer(Player.human(UUID.randomUUID(), Colors.WHITE))
+        return session
+    }
+
+    def "Games between humans are played without GnuGo"() {
+        given:
+        def session = session()
+
+        when: "Both players move and query the game"
+        engine.processMove(session, DeviceMove.at(2, 2))
+        engine.processMove(session, DeviceMove.at(3, 3))
+        def game = engine.getGameState(session)
+
+        then: "The board holds both stones and Black is to move"
+        game.positions.last()[2][2].state == StoneState.Black
+        game.positions.last()[3][3].state == StoneState.White
+        game.activePlayer.color == Colors.BLACK
+        session.moves == ["C7", "D6"]
+
+        and: "GnuGo was never asked"
+        0 * gnuGo._
+    }
+
+    def "Illegal moves are rejected without changing the session"() {
+        given: "A stone at C7"
+        def session = session()
+        engine.processMove(session, DeviceMove.at(2, 2))
+
+        when: "White plays on the same intersection"
+        engine.processMove(session, DeviceMove.at(2, 2))
+
+        then:
+        thrown(InvalidMoveException)
+        session.moves == ["C7"]
+    }
+
+    def "In-process calls are metered like engine calls"() {
+        given: "A stone at C7"
+        def session = session()
+        engine.processMove(session, DeviceMove.at(2, 2))
+
+        when: "White plays on the same intersection, then the game is queried and the move undone"
+        try {
+            engine.processMove(session, DeviceMove.at(2, 2))
+        } catch (InvalidMoveException ignored) {
+        }
+        engine.getGameState(session)
+        engine.undoMoves(session, 1)
+
+        then:
+        meterRegistry.get("game.engine.call").tags("operation", "process_move", "size", "9", "outcome", "success").timer().count() == 1
+        meterRegistry.get("game.engine.call").tags("operation", "process_move", "outcome", "rejected").timer().count() == 1
+        meterRegistry.get("game.engine.call").tags("operation", "game_state", "outcome", "success").timer().count() == 1
+        meterRegistry.get("game.engine.call").tags("operation", "undo", "outcome", "success").timer().count() == 1
+    }
+
+    def "Two passes end the game"() {
+        given:
+        def session = session()
+
+        when:
+        engine.processMove(session, DeviceMove.pass())
+        def game = engine.processMove(session, DeviceMove.pass())
+
+        then:
+        game.gameEnded
+    }
+
+    def "Bot moves and scores of bot games are delegated to GnuGo"() {
+        given: "A game against a bot"
+        def session = new Session(Instant.now(), BotDifficulty.EASY, 9)
+        session.addPlayer(Player.human(UUID.randomUUID(), Colors.BLACK))
+        session.addPlayer(Player.bot(UUID.randomUUID(), Colors.WHITE))
+
+        when:
+        engine.generateMove(session)
+        engine.getScore(session)
+
+        then:
+        1 * gnuGo.generateMove(session) >> Optional.empty()
+        1 * gnuGo.getScore(session)
+    }
+
+    def "Games between humans are scored without GnuGo"() {
+        given: "A black stone on an otherwise empty board"
+        def session = session()
+        engine.processMove(session, DeviceMove.at(2, 2))
+
+        when:
+        def endGame = engine.getScore(session)
+
+        then: "Black owns the board less komi"
+        endGame.score == 80 - 5.5
+        endGame.winners*.color == [Colors.BLACK]
+        meterRegistry.get("game.engine.call").tags("operation", "score", "outcome", "success").timer().count() == 1
+
+        and: "GnuGo was never asked"
+        0 * gnuGo._
+    }
+}
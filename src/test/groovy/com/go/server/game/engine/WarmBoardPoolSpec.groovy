@@ -0,0 +1,113 @@
+package com.go.server.game.engine
+
+import com.go.server.game.engine.gtp.FakeGtpServer
+import com.go.server.game.engine.gtp.GtpBackend
+import com.go.server.game.engine.gtp.GtpBackendRouter
+import com.go.server.game.engine.gtp.GtpBoardBindings
+import com.go.server.game.engine.gtp.GtpConnectionPool
+import com.go.server.game.model.DeviceMove
+import com.go.server.game.model.ScoringRules
+import com.go.server.game.session.model.Colors
+import com.go.server.game.session.model.Player
+import com.go.server.game.session.model.Session
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+import java.time.Instant
+
+class WarmBoardPoolSpec extends Specification {
+
+    @AutoCleanup
+    FakeGtpServer server = new FakeGtpServer()
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    GtpBackendRouter router = new GtpBackendRouter([new GtpBackend("fake", new GtpConnectionPool({ server.connect() }, 0, 8, Duration.ofMinutes(5), Duration.ofSeconds(1), Duration.ofMinutes(5), "protocol_version"), 3, Duration.ofSeconds(30))], "protocol_version")
+
+    @AutoCleanup
+    WarmBoardPool warmBoards = new WarmBoardPool(router, meterRegistry, true, [9, 13] as int[], 1, 3, 10000, 5.5)
+
+    def "A new session starts on a warm board"() {
+        given: "A warm 9x9 board"
+        warmBoards.start()
+        new PollingConditions(timeout: 5).eventually {
+            assert warmBoards.getIdleCount(9) == 1
+        }
+        def metrics = new GnuGoMetrics(meterRegistry)
+        def ponderer = new Ponderer(meterRegistry, metrics, Mock(EngineWorkScheduler), false, 3, 1)
+        def engine = new GnuGoGameEngine(router, new GtpBoardBindings(router, 4, 60000), new SessionBoardCache(16),
+                new GenmoveCache(meterRegistry, 100, [:], 12, Optional.empty()), metrics,
+                new BotStrengthPolicy(meterRegistry, 2000, 0), ponderer, warmBoards, new GameScorer(ScoringRules.TERRITORY, 5.5), true, true)
+        def session = new Session(Instant.now(), null, 9)
+        session.addPlayer(Player.human(UUID.randomUUID(), Colors.BLACK))
+        session.addPlayer(Player.human(UUID.randomUUID(), Colors.WHITE))
+
+        when: "The session is prepared"
+        engine.prepareSession(session)
+
+        then: "The pool is replenished"
+        meterRegistry.counter("game.engine.warm.hits", "size", "9").count() == 1
+        new PollingConditions(timeout: 5).eventually {
+            assert warmBoards.getIdleCount(9) == 1
+            assert warmBoards.getIdleCount(13) == 1
+        }
+
+        when: "The session plays its first move"
+        server.commands.clear()
+        engine.processMove(session, DeviceMove.at(4, 4))
+
+        then: "The board needs no setup"
+        server.commands == ["play black E5", "list_stones black", "list_stones white"]
+
+        cleanup:
+        ponderer.close()
+    }
+
+    def "The number of warm boards follows the session creation rate"() {
+        when: "Sessions are created faster than the warm boards last"
+        5.times { warmBoards.take(13) }
+        warmBoards.adapt()
+
+        then: "More boards are kept for that size, up to the maximum"
+        warmBoards.getTarget(13) == 3
+        warmBoards.getTarget(9) == 1
+        meterRegistry.counter("game.engine.warm.misses", "size", "13").count() > 0
+
+        and: "They are set up in the background"
+        new PollingConditions(timeout: 5).eventually {
+            assert warmBoards.getIdleCount(13) == 3
+            assert server.commands.count { it == "boardsize 13" } >= 3
+        }
+    }
+
+    def "Warm boards and bound boards leave the reserve of the pool to engine calls"() {
+        given: "A pool of the default size with the default reserve"
+        def router = new GtpBackendRouter([new GtpBackend("fake", new GtpConnectionPool({ server.connect() }, 0, 16, Duration.ofMinutes(5), Duration.ofMillis(500), Duration.ofMinutes(5), "protocol_version"), 3, Duration.ofSeconds(30))], "protocol_version", 4)
+        def warm = new WarmBoardPool(router, new SimpleMeterRegistry(), true, [9, 13, 19] as int[], 2, 2, 30000, 5.5)
+        def bindings = new GtpBoardBindings(router, 8, 60000)
+
+        and: "Every warm board set up and eight sessions bound"
+        warm.start()
+        new PollingConditions(timeout: 5).eventually {
+            assert [9, 13, 19].every { warm.getIdleCount(it) == 2 }
+        }
+        8.times { bindings.bind("session-$it", router.borrow(), 9) }
+
+        when: "Engine calls take the rest of the pool"
+        def calls = (1..4).collect { router.borrow() }
+
+        then: "They got a connection right away, and the least recently bound sessions gave way"
+        calls.size() == 4
+        router.heldCount == 12
+        bindings.bindingCount == 6
+        !bindings.isBound("session-0")
+        bindings.isBound("session-7")
+
+        cleanup:
+        warm.close()
+        router.close()
+    }
+}
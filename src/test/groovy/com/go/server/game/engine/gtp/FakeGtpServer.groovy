@@ -0,0 +1,67 @@
+package com.go.server.game.engine.gtp
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.atomic.AtomicInteger
+
+class FakeGtpServer implements Closeable {
+    final ServerSocket serverSocket = new ServerSocket(0)
+    final AtomicInteger connections = new AtomicInteger()
+    final List<String> commands = new CopyOnWriteArrayList<>()
+    final List<Socket> sockets = new CopyOnWriteArrayList<>()
+    final GtpEventLoop loop = new GtpEventLoop(1)
+    volatile Closure<String> handler = { String command -> "= \n\n" }
+    volatile long latencyMillis = 0
+
+    FakeGtpServer() {
+        Thread.startDaemon {
+            while (!serverSocket.closed) {
+                try {
+                    def socket = serverSocket.accept()
+                    connections.incrementAndGet()
+                    sockets << socket
+                    Thread.startDaemon { serve(socket) }
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    int getPort() {
+        return serverSocket.localPort
+    }
+
+    GtpConnection connect(int readTimeout = 5000) {
+        return GtpConnection.open("localhost", port, loop, 1000, readTimeout)
+    }
+
+    private void serve(Socket socket) {
+        try {
+            def reader = new BufferedReader(new InputStreamReader(socket.inputStream))
+            def writer = socket.outputStream
+            String line
+            while ((line = reader.readLine()) != null) {
+                def matcher = line =~ /^(\d+) (.*)$/
+                def id = matcher.matches() ? matcher.group(1) : ""
+                def command = matcher.matches() ? matcher.group(2) : line
+                commands << command
+                if (latencyMillis > 0) Thread.sleep(latencyMillis)
+                def response = handler.call(command)
+                if (!(response ==~ /(?s)^.\d.*/)) {
+                    response = response.substring(0, 1) + id + response.substring(1)
+                }
+                writer.write(response.getBytes())
+                writer.flush()
+            }
+        } catch (IOException ignored) {
+        } finally {
+            socket.close()
+        }
+    }
+
+    @Override
+    void close() {
+        serverSocket.close()
+        sockets.each { it.close() }
+        loop.close()
+    }
+}
@@ -0,0 +1,145 @@
+package com.go.server.game.engine.gtp
+
+import com.go.server.game.engine.exception.EngineUnavailableException
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+
+class GtpBackendRouterSpec extends Specification {
+
+    List<FakeGtpServer> servers = []
+
+    def cleanup() {
+        servers.each { it.close() }
+    }
+
+    private GtpBackend backend(FakeGtpServer server, Closure<Boolean> down = { false }) {
+        servers << server
+        def pool = new GtpConnectionPool({
+            if (down()) throw new IOException("Connection refused")
+            server.connect()
+        }, 0, 4, Duration.ofMinutes(5), Duration.ofMillis(200), Duration.ofMinutes(5), "protocol_version")
+        return new GtpBackend("localhost:" + server.port, pool, 2, Duration.ZERO)
+    }
+
+    def "Connections of idle backends are spread evenly"() {
+        given: "A router over three backends"
+        def backends = (1..3).collect { backend(new FakeGtpServer()) }
+        def router = new GtpBackendRouter(backends, "protocol_version")
+
+        when: "Three connections are held at the same time"
+        def connections = (1..3).collect { router.borrow() }
+
+        then: "Every backend serves one of them"
+        backends.every { it.borrowedCount == 1 && it.pool.openCount == 1 }
+
+        cleanup:
+        connections.each { router.release(it) }
+    }
+
+    def "Connections go to the backend with the fewest requests in flight"() {
+        given: "A backend holding two idle boards and a slow one busy with a genmove"
+        def slow = new FakeGtpServer()
+        slow.latencyMillis = 1000
+        def idle = backend(new FakeGtpServer())
+        def busy = backend(slow)
+        def router = new GtpBackendRouter([idle, busy], "protocol_version")
+        def held = (1..3).collect { router.borrow() }
+        assert busy.borrowedCount == 1
+        // Borrowed in turn, so the second connection is the one on the slow backend
+        def thinking = held[1].sendBatchAsync(["reg_genmove black"])
+
+        when:
+        def connection = router.borrow()
+
+        then: "The backend with more connections but nothing to do gets it"
+        busy.inFlight == 1
+        idle.inFlight == 0
+        idle.borrowedCount == 3
+
+        when: "The genmove is answered"
+        thinking.join()
+
+        then:
+        new PollingConditions(timeout: 5).eventually {
+            assert busy.inFlight == 0
+        }
+
+        cleanup:
+        (held + connection).each { router.release(it) }
+    }
+
+    def "A bound session stays on its backend"() {
+        given: "Board bindings over two backends"
+        def backends = (1..2).collect { backend(new FakeGtpServer()) }
+        def router = new GtpBackendRouter(backends, "protocol_version")
+        def bindings = new GtpBoardBindings(router, 4, 60000)
+
+        and: "A session bound after its first call"
+        def binding = bindings.checkout("session")
+        def connection = binding.connection
+        bindings.checkin(binding)
+
+        when: "Another session holds a connection and the first session calls again"
+        def other = router.borrow()
+        def again = bindings.checkout("session")
+
+        then: "The first session keeps its connection even though its backend is busier"
+        again.connection.is(connection)
+
+        cleanup:
+        router.release(other)
+        bindings.checkin(again)
+    }
+
+    def "An unhealthy backend is ejected and re-admitted after a successful probe"() {
+        given: "A router over a healthy backend and one that refuses connections"
+        def down = true
+        def healthy = backend(new FakeGtpServer())
+        def flaky = backend(new FakeGtpServer(), { down })
+        def router = new GtpBackendRouter([flaky, healthy], "protocol_version")
+
+        when: "Connections are requested while the flaky backend is down"
+        def connections = (1..3).collect { router.borrow() }
+        connections.each { router.release(it) }
+
+        then: "The flaky backend is ejected and every connection came from the healthy one"
+        flaky.state == GtpBackend.State.OPEN
+        !flaky.available
+        healthy.pool.openCount == 3
+        flaky.pool.openCount == 0
+
+        when: "The backend recovers and is probed"
+        down = false
+        router.probe()
+
+        then: "It takes traffic again"
+        flaky.state == GtpBackend.State.CLOSED
+        def first = router.borrow()
+        def second = router.borrow()
+        [flaky, healthy].every { it.borrowedCount == 1 }
+
+        cleanup:
+        router.release(first)
+        router.release(second)
+    }
+
+    def "Borrowing fails when every backend is ejected"() {
+        given: "A router whose only backend refuses connections"
+        def router = new GtpBackendRouter([backend(new FakeGtpServer(), { true })], "protocol_version")
+
+        when: "Connections are requested until the backend is ejected"
+        2.times {
+            try {
+                router.borrow()
+            } catch (EngineUnavailableException ignored) {
+            }
+        }
+        router.borrow()
+
+        then: "No backend is left to route to"
+        def error = thrown(EngineUnavailableException)
+        error.message == "All GTP backends are unavailable"
+    }
+}
@@ -0,0 +1,106 @@
+package com.go.server.game.engine.gtp
+
+import com.go.server.game.engine.exception.EngineUnavailableException
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.time.Duration
+
+class GtpConnectionPoolSpec extends Specification {
+
+    @AutoCleanup
+    FakeGtpServer server = new FakeGtpServer()
+
+    private GtpConnectionPool pool(int minIdle, int maxSize, Duration maxIdleTime = Duration.ofMinutes(5), Duration validationInterval = Duration.ofMinutes(5)) {
+        return new GtpConnectionPool({ server.connect() }, minIdle, maxSize, maxIdleTime, Duration.ofMillis(200), validationInterval, "protocol_version")
+    }
+
+    def "Connections are reused across borrows"() {
+        given: "A pool with a single connection"
+        def pool = pool(0, 1)
+
+        when: "A connection is borrowed and released several times"
+        3.times {
+            def connection = pool.borrow()
+            connection.send("name")
+            pool.release(connection)
+        }
+
+        then: "Only one connection was opened to the engine"
+        server.connections.get() == 1
+        pool.openCount == 1
+        pool.idleCount == 1
+    }
+
+    def "Borrowing fails after the borrow timeout when the pool is exhausted"() {
+        given: "A pool whose only connection is borrowed"
+        def pool = pool(0, 1)
+        pool.borrow()
+
+        when: "Another connection is requested"
+        pool.borrow()
+
+        then: "The engine is reported as unavailable"
+        thrown(EngineUnavailableException)
+    }
+
+    def "Broken connections are discarded on release"() {
+        given: "A borrowed connection that breaks"
+        def pool = pool(0, 1)
+        def connection = pool.borrow()
+        connection.close()
+
+        when: "It is released and a connection is borrowed again"
+        pool.release(connection)
+        def next = pool.borrow()
+        next.send("name")
+
+        then: "A fresh connection is opened"
+        !next.is(connection)
+        server.connections.get() == 2
+        pool.openCount == 1
+    }
+
+    def "Idle connections failing validation are replaced"() {
+        given: "A pool which validates every idle connection"
+        def pool = pool(0, 1, Duration.ofMinutes(5), Duration.ZERO)
+        def connection = pool.borrow()
+        pool.release(connection)
+
+        and: "An engine which rejects the validation command"
+        server.handler = { String command -> "? unknown command\n\n" }
+
+        when: "A connection is borrowed"
+        def next = pool.borrow()
+        next.send("name")
+
+        then: "The invalid connection was replaced"
+        !next.is(connection)
+        server.connections.get() == 2
+    }
+
+    def "Maintenance keeps the minimum idle connections and evicts expired ones"() {
+        given: "A pool with one minimum idle connection"
+        def pool = pool(1, 3, Duration.ZERO)
+
+        when: "Three connections are used and the pool is maintained"
+        def connections = (1..3).collect { pool.borrow() }
+        connections.each { pool.release(it) }
+        pool.maintain()
+
+        then: "Only the minimum idle connection is kept"
+        pool.idleCount == 1
+        pool.openCount == 1
+
+        when: "The remaining connection breaks and the pool is maintained again"
+        def broken = pool.borrow()
+        broken.close()
+        pool.release(broken)
+        pool.maintain()
+
+        then: "A replacement connection is opened"
+        pool.idleCount == 1
+        pool.openCount == 1
+        pool.borrow().usable
+    }
+}
@@ -0,0 +1,164 @@
+package com.go.server.game.engine.gtp
+
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+class GtpConnectionSpec extends Specification {
+
+    @AutoCleanup
+    FakeGtpServer server = new FakeGtpServer()
+
+    def "A batch is answered per command"() {
+        given: "A server rejecting one of the commands"
+        server.handler = { String command -> command == "play black A1" ? "? illegal move\n\n" : "= ${command.split(' ')[0]}\n\n" }
+        def connection = server.connect()
+
+        when: "A batch is sent"
+        def responses = connection.sendBatch(["boardsize 9", "play black A1", "list_stones black"])
+
+        then: "Each response belongs to its command"
+        responses*.command == ["boardsize 9", "play black A1", "list_stones black"]
+        responses*.success == [true, false, true]
+        responses*.body == ["boardsize", "illegal move", "list_stones"]
+        server.commands == ["boardsize 9", "play black A1", "list_stones black"]
+
+        and: "The connection stays usable"
+        connection.usable
+
+        cleanup:
+        connection.close()
+    }
+
+    def "Command ids keep increasing across batches"() {
+        given: "A connection"
+        def connection = server.connect()
+
+        when: "Two batches are sent"
+        def first = connection.sendBatch(["name", "version"])
+        def second = connection.sendBatch(["name"])
+
+        then: "The ids are unique"
+        first*.id + second*.id == [1, 2, 3]
+
+        cleanup:
+        connection.close()
+    }
+
+    def "Batches queued on a connection complete in order without blocking the caller"() {
+        given: "A slow server"
+        server.latencyMillis = 50
+        server.handler = { String command -> "= ${command}\n\n" }
+        def connection = server.connect()
+
+        when: "Two batches are queued back to back"
+        def first = connection.sendBatchAsync(["name", "version"])
+        def second = connection.sendBatchAsync(["protocol_version"])
+
+        then: "Neither is answered yet"
+        !first.done
+        !second.done
+
+        and: "Each completes with its own responses"
+        first.get(5, java.util.concurrent.TimeUnit.SECONDS)*.body == ["name", "version"]
+        second.get(5, java.util.concurrent.TimeUnit.SECONDS)*.body == ["protocol_version"]
+
+        cleanup:
+        connection.close()
+    }
+
+    def "Requests queued behind slow ones get their whole read timeout"() {
+        given: "A server taking two thirds of the read timeout per command"
+        server.latencyMillis = 200
+        def connection = server.connect(300)
+
+        when: "Three requests are queued back to back"
+        def requests = (1..3).collect { connection.sendBatchAsync(["genmove black"]) }
+
+        then: "All of them are answered and no timeout is left behind"
+        requests.every { it.get(5, java.util.concurrent.TimeUnit.SECONDS)[0].success }
+        connection.usable
+        server.loop.scheduledTimeouts == 0
+
+        cleanup:
+        connection.close()
+    }
+
+    def "A request the engine does not answer in time breaks the connection"() {
+        given:
+        server.latencyMillis = 1000
+        def connection = server.connect(100)
+
+        when:
+        connection.sendBatch(["genmove black"])
+
+        then:
+        thrown(java.net.SocketTimeoutException)
+        !connection.usable
+
+        cleanup:
+        connection.close()
+    }
+
+    def "A multi line response is kept as one body"() {
+        given: "A server answering with several lines"
+        server.handler = { String command -> "= A1 B2\nC3\n\n" }
+        def connection = server.connect()
+
+        when: "A command is sent"
+        def responses = connection.sendBatch(["list_stones black"])
+
+        then: "The body contains all lines"
+        responses[0].body == "A1 B2\nC3"
+
+        cleanup:
+        connection.close()
+    }
+
+    def "A response with an unknown id breaks the connection"() {
+        given: "A server answering with a foreign id"
+        server.handler = { String command -> "=99 \n\n" }
+        def connection = server.connect()
+
+        when: "A batch is sent"
+        connection.sendBatch(["name"])
+
+        then: "The batch fails and the connection is discarded"
+        thrown(IOException)
+        !connection.usable
+
+        cleanup:
+        connection.close()
+    }
+
+    def "Responses split over several reads with carriage returns are parsed"() {
+        given: "A reader whose source hands out one byte at a time"
+        def bytes = "garbage\r\n=12 D4 q16\r\n\r\n?13 illegal move\n\n".bytes
+        def position = 0
+        def reader = new GtpResponseReader(java.nio.ByteBuffer.allocate(4))
+        def source = { java.nio.ByteBuffer buffer ->
+            if (position == bytes.length) return -1
+            buffer.put(bytes[position++])
+            return 1
+        } as GtpResponseReader.Source
+
+        when:
+        def first = reader.read(source)
+        def second = reader.read(source)
+
+        then:
+        [first.id, first.success, first.body] == [12, true, "D4 q16"]
+        [second.id, second.success, second.body] == [13, false, "illegal move"]
+    }
+
+    def "Vertex lists are decoded into board coordinates"() {
+        given: "A stone list with lower case vertices, a pass and noise"
+        def response = new GtpResponse(1, "list_stones black", true, "A1 j9 pass T19 Z99 D4x\nE5")
+        def vertices = []
+
+        when:
+        response.forEachVertex(9, { int x, int y -> vertices << [x, y] } as GtpResponse.VertexConsumer)
+
+        then: "Only vertices on the 9x9 board are reported, skipping the I column"
+        vertices == [[0, 8], [8, 0], [4, 4]]
+    }
+}
@@ -0,0 +1,169 @@
+package com.go.server.game.model
+
+import spock.lang.Specification
+
+import static com.go.server.game.model.StoneState.Black
+import static com.go.server.game.model.StoneState.Empty
+import static com.go.server.game.model.StoneState.White
+
+class BoardSpec extends Specification {
+
+    def "A stone without liberties is captured"() {
+        given: "A white stone surrounded on three sides"
+        def board = new Board(9)
+        board.play(4, 4, White)
+        board.play(3, 4, Black)
+        board.play(5, 4, Black)
+        board.play(4, 3, Black)
+
+        when: "Black fills the last liberty"
+        def captured = board.play(4, 5, Black)
+
+        then: "The white stone is removed"
+        captured == 1
+        board.get(4, 4) == Empty
+    }
+
+    def "A group is captured as a whole"() {
+        given: "Two white stones in the corner"
+        def board = new Board(9)
+        board.play(0, 0, White)
+        board.play(1, 0, White)
+        board.play(0, 1, Black)
+        board.play(1, 1, Black)
+
+        when: "Black takes the last liberty"
+        def captured = board.play(2, 0, Black)
+
+        then: "Both stones are removed"
+        captured == 2
+        board.get(0, 0) == Empty
+        board.get(1, 0) == Empty
+    }
+
+    def "Suicide is illegal unless it captures"() {
+        given: "A corner point surrounded by white"
+        def board = new Board(9)
+        board.play(1, 0, White)
+        board.play(0, 1, White)
+
+        expect: "Black may not play into it"
+        board.check(0, 0, Black) == MoveLegality.SUICIDE
+
+        and: "White may"
+        board.check(0, 0, White) == MoveLegality.LEGAL
+    }
+
+    def "Occupied and outside intersections are rejected"() {
+        given:
+        def board = new Board(9)
+        board.play(2, 2, Black)
+
+        expect:
+        board.check(2, 2, White) == MoveLegality.OCCUPIED
+        board.check(9, 0, White) == MoveLegality.OUT_OF_BOUNDS
+    }
+
+    private static Board koShape() {
+        def board = new Board(9)
+        board.play(1, 0, Black)
+        board.play(0, 1, Black)
+        board.play(1, 2, Black)
+        board.play(2, 0, White)
+        board.play(3, 1, White)
+        board.play(2, 2, White)
+        board.play(1, 1, White)
+        return board
+    }
+
+    def "A ko may not be retaken immediately"() {
+        given: "A ko shape"
+        def board = koShape()
+
+        when: "Black captures the white stone"
+        def captured = board.play(2, 1, Black)
+
+        then: "White cannot recapture right away"
+        captured == 1
+        board.check(1, 1, White) == MoveLegality.KO
+
+        when: "Both players play elsewhere"
+        board.play(8, 8, White)
+        board.play(8, 7, Black)
+
+        then: "The ko can be retaken"
+        board.check(1, 1, White) == MoveLegality.LEGAL
+    }
+
+    def "A pass clears the ko"() {
+        given: "A ko which was just taken"
+        def board = koShape()
+        board.play(2, 1, Black)
+
+        when: "White passes"
+        board.pass()
+
+        then:
+        board.check(1, 1, White) == MoveLegality.LEGAL
+    }
+
+    def "Liberties shared by merged groups are tracked"() {
+        given: "A black chain along the edge, joined by the last stone"
+        def board = new Board(9)
+        board.play(0, 0, Black)
+        board.play(2, 0, Black)
+        board.play(1, 0, Black)
+
+        and: "White surrounds all but one liberty"
+        board.play(3, 0, White)
+        board.play(0, 1, White)
+        board.play(1, 1, White)
+
+        expect: "White may fill the last shared liberty"
+        board.check(2, 1, White) == MoveLegality.LEGAL
+
+        when:
+        def captured = board.play(2, 1, White)
+
+        then: "The whole chain is captured"
+        captured == 3
+        board.countStones(Black) == 0
+        board.countStones(White) == 4
+    }
+
+    def "Copies are independent snapshots comparable by their stones"() {
+        given:
+        def board = new Board(13)
+        board.play(3, 3, Black)
+        def snapshot = board.copy()
+
+        when:
+        board.play(9, 9, White)
+
+        then:
+        snapshot != board
+        snapshot.get(9, 9) == Empty
+
+        when: "The same stone is placed on the snapshot"
+        snapshot.play(9, 9, White)
+
+        then:
+        snapshot == board
+        snapshot.hashCode() == board.hashCode()
+    }
+
+    def "Boards larger than one word of bits are supported"() {
+        given:
+        def board = new Board(19)
+
+        when: "A stone is captured in the far corner"
+        board.play(18, 18, White)
+        board.play(17, 18, Black)
+        def captured = board.play(18, 17, Black)
+
+        then:
+        captured == 1
+        board.get(18, 18) == Empty
+        board.countStones(Black) == 2
+    }
+}
@@ -0,0 +1,85 @@
+package com.go.server.game.model
+
+import spock.lang.Specification
+
+class GameRecordSpec extends Specification {
+
+    def "A move repeating an earlier position is rejected"() {
+        given: "A 2x2 game where White captures everything"
+        def record = new GameRecord(2)
+        record.play(0, 0)
+        record.play(1, 1)
+        record.play(1, 0)
+        record.play(0, 1)
+        record.play(0, 0)
+        record.play(1, 0)
+
+        expect: "Black recapturing would recreate the position after the first move"
+        record.board.check(0, 0, StoneState.Black) == MoveLegality.LEGAL
+        record.check(0, 0) == MoveLegality.SUPERKO
+    }
+
+    def "The hash depends on the stones and the side to move"() {
+        given:
+        def first = new GameRecord(9)
+        def second = new GameRecord(9)
+
+        when: "The same stones are reached in a different order"
+        first.play(2, 2)
+        first.play(6, 6)
+        first.play(4, 4)
+        second.play(4, 4)
+        second.play(6, 6)
+        second.play(2, 2)
+
+        then:
+        first.hash == second.hash
+
+        when: "One side passes"
+        second.pass()
+
+        then: "Only the side to move differs"
+        first.board.positionHash == second.board.positionHash
+        first.hash != second.hash
+    }
+
+    def "The incremental hash matches a position set up from scratch"() {
+        given: "A game with a capture"
+        def record = new GameRecord(9)
+        record.play(4, 4)
+        record.play(4, 3)
+        record.play(3, 3)
+        record.play(0, 0)
+        record.play(5, 3)
+        record.play(0, 1)
+
+        when: "Black captures the white stone"
+        def expectedHash = record.board.hashAfter(4, 2, StoneState.Black)
+        record.play(4, 2)
+
+        and: "The remaining stones are placed on an empty board"
+        def board = new Board(9)
+        [[4, 4], [3, 3], [5, 3], [4, 2]].each { board.place(it[0], it[1], StoneState.Black) }
+        [[0, 0], [0, 1]].each { board.place(it[0], it[1], StoneState.White) }
+
+        then:
+        record.board.positionHash == expectedHash
+        record.board.positionHash == board.positionHash
+        record.board == board
+    }
+
+    def "The position history grows beyond its initial capacity"() {
+        given:
+        def history = new PositionHistory()
+        def random = new Random(7)
+        def hashes = (1..1000).collect { random.nextLong() } + [0L]
+
+        when:
+        hashes.each { history.add(it) }
+
+        then:
+        history.size() == hashes.toSet().size()
+        hashes.every { history.contains(it) }
+        !history.contains(42L)
+    }
+}
@@ -0,0 +1,84 @@
+package com.go.server.game.model
+
+import spock.lang.Specification
+
+class ScoreSpec extends Specification {
+
+    /**
+     * A 5x5 game with Black walling off the two left columns and White the two right ones,
+     * leaving the middle column neutral.
+     */
+    private static GameRecord dividedBoard() {
+        def record = new GameRecord(5)
+        (0..4).each { y ->
+            record.play(1, y)
+            record.play(3, y)
+        }
+        return record
+    }
+
+    def "Area scoring counts stones and surrounded points"() {
+        when:
+        def score = Score.count(dividedBoard(), [], ScoringRules.AREA, 0.5)
+
+        then: "Each side has five stones and five points, the middle column is neutral"
+        score.black() == 10
+        score.white() == 10.5
+        score.winner() == StoneState.White
+        score.margin() == 0.5
+    }
+
+    def "Territory scoring counts surrounded points and prisoners"() {
+        given: "White invaded Black's area and was captured"
+        def record = dividedBoard()
+        record.pass()
+        record.play(0, 0)
+        def captured = record.play(0, 1)
+
+        when:
+        def score = Score.count(record, [], ScoringRules.TERRITORY, 0)
+
+        then: "Black's point lost to its own stone is made up by the prisoner"
+        captured == 1
+        record.getCaptures(StoneState.Black) == 1
+        record.getCaptures(StoneState.White) == 0
+        score == new Score(4 + 1, 5)
+        score.winner() == StoneState.Empty
+    }
+
+    def "Dead stones are taken off and count as prisoners of the opponent"() {
+        given: "A White stone left inside Black's area"
+        def record = dividedBoard()
+        record.play(2, 2)
+        record.play(0, 2)
+
+        when:
+        def territory = Score.count(record, [new Location(0, 2)], ScoringRules.TERRITORY, 0)
+        def area = Score.count(record, [new Location(0, 2)], ScoringRules.AREA, 0)
+
+        then: "Black gets the point and the prisoner, White keeps its five points"
+        territory.black() == 5 + 1
+        territory.white() == 5
+        area.black() == 5 + 1 + 5
+        area.white() == 5 + 5
+    }
+
+    def "A region touching both colors is neutral"() {
+        given:
+        def record = new GameRecord(5)
+        record.play(0, 0)
+        record.play(4, 4)
+
+        expect:
+        Score.count(record, [], ScoringRules.TERRITORY, 0) == new Score(0, 0)
+        Score.count(record, [], ScoringRules.TERRITORY, 0).winner() == StoneState.Empty
+    }
+
+    def "Dead stones off the board are rejected"() {
+        when:
+        Score.count(new GameRecord(5), [new Location(5, 0)], ScoringRules.AREA, 0)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
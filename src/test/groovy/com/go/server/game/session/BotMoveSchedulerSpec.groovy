@@ -0,0 +1,130 @@
+package com.go.server.game.session
+
+import com.go.server.game.session.model.BotDifficulty
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class BotMoveSchedulerSpec extends Specification {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry()
+    BotMoveScheduler scheduler = new BotMoveScheduler(registry, 1, 4, 2)
+    CountDownLatch release = new CountDownLatch(1)
+    List<String> played = new CopyOnWriteArrayList<>()
+
+    def cleanup() {
+        release.countDown()
+        scheduler.close()
+    }
+
+    private void blockWorker() {
+        def started = new CountDownLatch(1)
+        scheduler.schedule("blocker", BotDifficulty.HARD, {
+            started.countDown()
+            release.await()
+            CompletableFuture.completedFuture(null)
+        })
+        assert started.await(5, TimeUnit.SECONDS)
+    }
+
+    private Closure<CompletableFuture<Void>> record(String name, CountDownLatch done) {
+        return {
+            played << name
+            done.countDown()
+            CompletableFuture.completedFuture(null)
+        }
+    }
+
+    def "A session has at most one queued bot move"() {
+        given: "A busy worker"
+        blockWorker()
+
+        expect:
+        scheduler.schedule("session", BotDifficulty.EASY, { CompletableFuture.completedFuture(null) })
+        !scheduler.schedule("session", BotDifficulty.EASY, { CompletableFuture.completedFuture(null) })
+        scheduler.getQueueSize(BotDifficulty.EASY) == 1
+    }
+
+    def "Easy bots are not stuck behind a queue of hard bots"() {
+        given: "A busy worker and three hard moves queued before an easy one"
+        blockWorker()
+        def done = new CountDownLatch(4)
+        (1..3).each { scheduler.schedule("hard-$it", BotDifficulty.HARD, record("hard", done)) }
+        scheduler.schedule("easy", BotDifficulty.EASY, record("easy", done))
+
+        when:
+        release.countDown()
+        done.await(5, TimeUnit.SECONDS)
+
+        then: "The easy move is among the first two moves played"
+        played.size() == 4
+        played.indexOf("easy") <= 1
+    }
+
+    def "Queue wait times are recorded per difficulty"() {
+        given:
+        def done = new CountDownLatch(1)
+
+        when:
+        scheduler.schedule("session", BotDifficulty.MEDIUM, record("medium", done))
+        done.await(5, TimeUnit.SECONDS)
+
+        then:
+        registry.get("game.bot.queue.wait").tag("difficulty", "medium").timer().count() == 1
+    }
+
+    def "Moves beyond the queue capacity are rejected"() {
+        given: "A busy worker and a full queue"
+        blockWorker()
+        (1..4).each { scheduler.schedule("session-$it", BotDifficulty.EASY, { CompletableFuture.completedFuture(null) }) }
+
+        expect:
+        !scheduler.schedule("session-5", BotDifficulty.EASY, { CompletableFuture.completedFuture(null) })
+        registry.get("game.bot.rejected").counter().count() == 1
+    }
+
+    def "A worker starts the next move while the previous one is still in flight"() {
+        given: "One worker and a move waiting on the engine"
+        def engine = new CompletableFuture<Void>()
+        def done = new CountDownLatch(1)
+        scheduler.schedule("thinking", BotDifficulty.HARD, { engine })
+
+        when:
+        scheduler.schedule("next", BotDifficulty.HARD, record("next", done))
+
+        then: "Only the move waiting on the engine stays in flight"
+        done.await(5, TimeUnit.SECONDS)
+        new PollingConditions(timeout: 5).eventually {
+            assert registry.get("game.bot.in-flight").gauge().value() == 1
+        }
+
+        cleanup:
+        engine.complete(null)
+    }
+
+    def "Moves in flight are bounded"() {
+        given: "Both slots taken by moves waiting on the engine"
+        def engines = [new CompletableFuture<Void>(), new CompletableFuture<Void>()]
+        engines.each { engine -> scheduler.schedule("thinking-${engines.indexOf(engine)}", BotDifficulty.HARD, { engine }) }
+        def done = new CountDownLatch(1)
+        scheduler.schedule("next", BotDifficulty.HARD, record("next", done))
+
+        expect: "The next move waits until a slot is free"
+        !done.await(200, TimeUnit.MILLISECONDS)
+        scheduler.getQueueSize(BotDifficulty.HARD) == 1
+
+        when:
+        engines[0].complete(null)
+
+        then:
+        done.await(5, TimeUnit.SECONDS)
+
+        cleanup:
+        engines[1].complete(null)
+    }
+}
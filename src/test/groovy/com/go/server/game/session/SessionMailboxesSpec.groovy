@@ -0,0 +1,89 @@
+package com.go.server.game.session
+
+import com.go.server.game.session.exception.SessionBusyException
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.CopyOnWriteArrayList
+
+class SessionMailboxesSpec extends Specification {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry()
+    SessionMailboxes mailboxes = new SessionMailboxes(registry, 2)
+
+    def "Commands of one session run one after another"() {
+        given: "A running command"
+        def first = new CompletableFuture<String>()
+        def started = new CopyOnWriteArrayList<String>()
+        def firstResult = mailboxes.submit("session", { started << "first"; first })
+
+        when: "A second command is submitted"
+        def secondResult = mailboxes.submit("session", { started << "second"; CompletableFuture.completedFuture("second") })
+
+        then: "It waits for the first one"
+        started == ["first"]
+        mailboxes.getDepth("session") == 2
+        registry.get("game.session.mailbox.pending").gauge().value() == 2
+
+        when: "The first command completes"
+        first.complete("first")
+
+        then: "The second one runs and the mailbox is dropped"
+        firstResult.join() == "first"
+        secondResult.join() == "second"
+        started == ["first", "second"]
+        mailboxes.getDepth("session") == 0
+        registry.get("game.session.mailbox.active").gauge().value() == 0
+    }
+
+    def "Commands of different sessions do not wait for each other"() {
+        given: "A command that does not complete"
+        mailboxes.submit("blocked", { new CompletableFuture<String>() })
+
+        expect:
+        mailboxes.submit("other", { CompletableFuture.completedFuture("done") }).join() == "done"
+    }
+
+    def "A failed command does not block the mailbox"() {
+        when:
+        def failed = mailboxes.submit("session", { throw new IllegalStateException("broken") })
+        def next = mailboxes.submit("session", { CompletableFuture.completedFuture("next") })
+
+        then:
+        failed.completedExceptionally
+        next.join() == "next"
+    }
+
+    def "A full mailbox rejects further commands"() {
+        given: "A mailbox holding two commands"
+        mailboxes.submit("session", { new CompletableFuture<String>() })
+        mailboxes.submit("session", { CompletableFuture.completedFuture("queued") })
+
+        when:
+        mailboxes.submit("session", { CompletableFuture.completedFuture("rejected") }).join()
+
+        then:
+        def error = thrown(CompletionException)
+        error.cause instanceof SessionBusyException
+        registry.get("game.session.mailbox.rejected").counter().count() == 1
+    }
+
+    def "The depth of the fullest mailbox is published"() {
+        given: "One session with two pending commands and another with one"
+        def first = new CompletableFuture<String>()
+        mailboxes.submit("session", { first })
+        mailboxes.submit("session", { CompletableFuture.completedFuture("queued") })
+        mailboxes.submit("other", { new CompletableFuture<String>() })
+
+        expect:
+        registry.get("game.session.mailbox.depth.max").gauge().value() == 2
+
+        when: "The first command of the fuller session completes"
+        first.complete("done")
+
+        then:
+        registry.get("game.session.mailbox.depth.max").gauge().value() == 1
+    }
+}
@@ -0,0 +1,129 @@
+package com.go.server.game.session
+
+import com.go.server.game.engine.AsyncGameEngine
+import com.go.server.game.message.handler.MessageHandler
+import com.go.server.game.model.Board
+import com.go.server.game.model.DeviceMove
+import com.go.server.game.model.Game
+import com.go.server.game.session.exception.InvalidMoveException
+import com.go.server.game.session.model.BotDifficulty
+import com.go.server.game.session.model.Colors
+import com.go.server.game.session.model.Player
+import com.go.server.game.session.model.Session
+import com.go.server.game.session.repository.SessionRepository
+import com.go.server.user.UserService
+import com.go.server.user.model.User
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.time.Instant
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+
+class SessionServiceSpec extends Specification {
+
+    SessionRepository repository = Mock()
+    AsyncGameEngine gameEngine = Mock()
+    BotMoveScheduler botMoveScheduler = Mock()
+    SessionService service = new SessionService(repository, Mock(MessageHandler), gameEngine, Mock(UserService),
+            botMoveScheduler, new SessionMailboxes(new SimpleMeterRegistry(), 16), 1000, 1000, 1000, false)
+
+    User human = new User(UUID.randomUUID(), "human", "", "")
+    Player black = Player.human(human.id, Colors.BLACK)
+    Player bot = Player.bot(UUID.randomUUID(), Colors.WHITE)
+    Session session = new Session(Instant.now(), BotDifficulty.EASY, 9)
+
+    def setup() {
+        session.addPlayer(black)
+        session.addPlayer(bot)
+        repository.getSession(session.id) >> session
+    }
+
+    def "A move on the player's turn goes to the engine without a game state query"() {
+        when:
+        service.updateSession(session.id, human, DeviceMove.at(2, 2)).join()
+
+        then:
+        0 * gameEngine.getGameState(*_)
+        1 * gameEngine.processMove(session, _, _) >> {
+            session.addMove("C7")
+            CompletableFuture.completedFuture(new Game(9, bot, black, new Board(9), false))
+        }
+        1 * botMoveScheduler.schedule(session.id, BotDifficulty.EASY, _)
+    }
+
+    def "A move out of turn is rejected locally"() {
+        given: "Black already moved"
+        session.addMove("C7")
+
+        when:
+        service.updateSession(session.id, human, DeviceMove.at(3, 3)).join()
+
+        then:
+        def error = thrown(CompletionException)
+        error.cause instanceof InvalidMoveException
+        0 * gameEngine._
+    }
+
+    def "A move after two passes is rejected locally"() {
+        given:
+        session.addMove("PASS")
+        session.addMove("PASS")
+
+        when:
+        service.updateSession(session.id, human, DeviceMove.pass()).join()
+
+        then:
+        def error = thrown(CompletionException)
+        error.cause.message == "The game has already ended!"
+        0 * gameEngine._
+    }
+
+    def "Undoing against a bot takes back the bot's reply as well"() {
+        given: "Black moved and the bot replied"
+        session.addMove("C7")
+        session.addMove("E5")
+
+        when:
+        service.undoMove(session.id, human).join()
+
+        then: "Both moves were taken back and the session was stored once"
+        1 * gameEngine.undoMoves(session, 2, _) >> {
+            session.removeLastMoves(2)
+            CompletableFuture.completedFuture(new Game(9, black, bot, new Board(9), false))
+        }
+        1 * repository.updateSession(session)
+        session.moves.isEmpty()
+        0 * botMoveScheduler._
+    }
+
+    def "Undoing while the bot has not replied takes back the player's move only"() {
+        given:
+        session.addMove("C7")
+
+        when:
+        service.undoMove(session.id, human).join()
+
+        then:
+        1 * gameEngine.undoMoves(session, 1, _) >> CompletableFuture.completedFuture(new Game(9, black, bot, new Board(9), false))
+    }
+
+    def "A move the opponent already answered cannot be undone in a game between humans"() {
+        given:
+        def white = new User(UUID.randomUUID(), "white", "", "")
+        def humans = new Session(Instant.now(), null, 9)
+        humans.addPlayer(black)
+        humans.addPlayer(Player.human(white.id, Colors.WHITE))
+        humans.addMove("C7")
+        humans.addMove("E5")
+        repository.getSession(humans.id) >> humans
+
+        when:
+        service.undoMove(humans.id, human).join()
+
+        then:
+        def error = thrown(CompletionException)
+        error.cause.message == "Your opponent already replied!"
+        0 * gameEngine._
+    }
+}
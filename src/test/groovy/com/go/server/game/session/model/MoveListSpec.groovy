@@ -0,0 +1,88 @@
+package com.go.server.game.session.model
+
+import spock.lang.Specification
+
+class MoveListSpec extends Specification {
+
+    def "Moves read back as upper case GTP vertices"() {
+        given:
+        def moves = new MoveList()
+
+        when: "More moves are added than the initial capacity holds"
+        (1..19).each { moves.add("q$it") }
+        moves.add("pass")
+        moves.add("A1")
+
+        then:
+        moves.size() == 21
+        moves[0] == "Q1"
+        moves[18] == "Q19"
+        moves[19] == "PASS"
+        moves.getPacked(19) == MoveList.PASS
+        moves.last() == "A1"
+    }
+
+    def "The column skips I"() {
+        expect:
+        MoveList.column(MoveList.pack("H8")) == 7
+        MoveList.column(MoveList.pack("J8")) == 8
+        MoveList.vertex(MoveList.pack("T19")) == "T19"
+    }
+
+    def "Invalid vertices are rejected"() {
+        when:
+        MoveList.pack(vertex)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        vertex << ["resign", "I5", "A0", "A", "Z26"]
+    }
+
+    def "The binary form keeps the moves"() {
+        given:
+        def moves = new MoveList()
+        ["D4", "Q16", "PASS", "C17"].each { moves.add(it) }
+
+        when:
+        def bytes = moves.toBytes()
+        def read = MoveList.fromBytes(bytes)
+
+        then: "A version byte and two bytes per move"
+        bytes.length == 9
+        read == moves
+        read == ["D4", "Q16", "PASS", "C17"]
+    }
+
+    def "A copy is a prefix of the list it was taken from"() {
+        given:
+        def moves = new MoveList()
+        moves.add("D4")
+        def copy = moves.copy()
+
+        when:
+        moves.add("Q16")
+
+        then:
+        copy.isPrefixOf(moves)
+        !moves.isPrefixOf(copy)
+        copy == ["D4"]
+    }
+
+    def "Moves taken back leave a copy taken before untouched"() {
+        given:
+        def moves = new MoveList()
+        ["D4", "Q16", "C17"].each { moves.add(it) }
+        def copy = moves.copy()
+
+        when: "Two moves are taken back and another one is played"
+        moves.truncate(1)
+        moves.add("R4")
+
+        then:
+        moves == ["D4", "R4"]
+        copy == ["D4", "Q16", "C17"]
+        !moves.isPrefixOf(copy)
+    }
+}
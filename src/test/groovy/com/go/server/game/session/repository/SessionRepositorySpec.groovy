@@ -0,0 +1,293 @@
+package com.go.server.game.session.repository
+
+import com.go.server.game.session.model.Colors
+import com.go.server.game.session.model.MoveList
+import com.go.server.game.session.model.Player
+import com.go.server.game.session.model.Session
+import com.go.server.game.session.repository.document.MovePageDocument
+import com.go.server.game.session.repository.document.SessionDocument
+import com.google.api.core.ApiFutures
+import com.google.cloud.firestore.CollectionReference
+import com.google.cloud.firestore.DocumentReference
+import com.google.cloud.firestore.DocumentSnapshot
+import com.google.cloud.firestore.Firestore
+import com.google.cloud.firestore.QueryDocumentSnapshot
+import com.google.cloud.firestore.QuerySnapshot
+import com.google.cloud.firestore.WriteBatch
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.time.Instant
+
+class SessionRepositorySpec extends Specification {
+
+    Firestore firestore = Mock()
+    CollectionReference collection = Mock()
+    DocumentReference document = Mock()
+    CollectionReference pageCollection = Mock()
+    WriteBatch batch = Mock()
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+    SessionRepository repository = new SessionRepository(firestore, meterRegistry, true, 600000)
+    List<SessionDocument> headers = []
+    List<Map<String, Object>> updates = []
+    List<MovePageDocument> pages = []
+
+    def setup() {
+        firestore.document(_) >> document
+        firestore.collection(_) >> collection
+        firestore.batch() >> batch
+        collection.document(_) >> document
+        document.collection(MovePageDocument.COLLECTION_NAME) >> pageCollection
+        pageCollection.document(_) >> Mock(DocumentReference)
+        pageCollection.listDocuments() >> []
+        batch.create(_, _) >> batch
+        batch.set(_, _) >> { args ->
+            if (args[1] instanceof MovePageDocument) {
+                pages << (MovePageDocument) args[1]
+            } else {
+                headers << (SessionDocument) args[1]
+            }
+            return batch
+        }
+        batch.update(_, _ as Map) >> { args ->
+            updates << (Map<String, Object>) args[1]
+            return batch
+        }
+    }
+
+    private Session session() {
+        def session = new Session(Instant.now(), null, 9)
+        session.addPlayer(Player.human(UUID.randomUUID(), Colors.BLACK))
+        session.addPlayer(Player.human(UUID.randomUUID(), Colors.WHITE))
+        return session
+    }
+
+    private static void play(Session session, int count) {
+        count.times {
+            def point = session.moves.size() % 81
+            session.addMove("ABCDEFGHJ"[point % 9] + (point.intdiv(9) + 1))
+        }
+    }
+
+    private double firestoreCalls(String operation) {
+        return meterRegistry.get("game.session.firestore.calls").tags("operation", operation).counter().count()
+    }
+
+    def "Moves are read from memory and written behind once per flush"() {
+        given:
+        batch.commit() >> ApiFutures.immediateFuture([])
+        def session = session()
+        repository.addSession(session)
+
+        when: "Ten moves are played, two within every flush interval"
+        10.times { i ->
+            def loaded = repository.getSession(session.id)
+            loaded.addMove(i % 2 == 0 ? "C3" : "D4")
+            repository.updateSession(loaded)
+            if (i % 2 == 1) repository.flush()
+        }
+
+        then: "Firestore was never read and only the header was updated once per flush besides the creation"
+        0 * document.get()
+        firestoreCalls("read") == 0
+        firestoreCalls("write") == 1 + 5
+        headers.isEmpty()
+        pages.isEmpty()
+        updates*.get(SessionDocument.MOVE_COUNT_FIELD_NAME) == [2, 4, 6, 8, 10]
+        updates.last().get(SessionDocument.MOVE_TAIL_FIELD_NAME).toBytes().length == 1 + 10 * 2
+        repository.getSession(session.id).moves.size() == 10
+    }
+
+    def "A failed write is retried with the next flush without losing a newer update"() {
+        given:
+        batch.commit() >>> [ApiFutures.immediateFuture([]), ApiFutures.immediateFailedFuture(new IOException("unavailable")), ApiFutures.immediateFuture([])]
+        def session = session()
+        repository.addSession(session)
+
+        when: "The first flush fails and the session is updated again"
+        session.addMove("C3")
+        repository.updateSession(session)
+        repository.flush()
+        session.addMove("D4")
+        repository.updateSession(session)
+        repository.flush()
+
+        then: "The retry wrote the newer document"
+        updates*.get(SessionDocument.MOVE_TAIL_FIELD_NAME)*.toBytes()*.length == [3, 5]
+        meterRegistry.get("game.session.store.write.failures").counter().count() == 1
+        meterRegistry.get("game.session.store.pending").gauge().value() == 0
+    }
+
+    def "Removing a session deletes it right away and drops its pending update"() {
+        given:
+        batch.commit() >> ApiFutures.immediateFuture([])
+        def session = session()
+        repository.addSession(session)
+        session.addMove("C3")
+        repository.updateSession(session)
+
+        when:
+        repository.removeSession(session)
+        repository.flush()
+
+        then:
+        updates.isEmpty()
+        firestoreCalls("delete") == 1
+    }
+
+    def "Pending updates are written on shutdown"() {
+        given:
+        batch.commit() >> ApiFutures.immediateFuture([])
+        def session = session()
+        repository.addSession(session)
+        session.addMove("C3")
+        repository.updateSession(session)
+
+        when:
+        repository.close()
+
+        then:
+        updates*.get(SessionDocument.MOVE_COUNT_FIELD_NAME) == [1]
+    }
+
+    def "A session not held in memory is read from Firestore once"() {
+        given:
+        def stored = SessionDocument.fromSession(session())
+        def snapshot = Mock(DocumentSnapshot) {
+            toObject(SessionDocument) >> stored
+        }
+
+        when:
+        repository.getSession(stored.id)
+        repository.getSession(stored.id)
+
+        then:
+        1 * document.get() >> ApiFutures.immediateFuture(snapshot)
+        firestoreCalls("read") == 1
+    }
+
+    def "A full page of moves is written once and the moves after it stay in the header"() {
+        given:
+        batch.commit() >> ApiFutures.immediateFuture([])
+        def session = session()
+        repository.addSession(session)
+
+        when: "Seventy moves are played with a flush after each"
+        70.times {
+            play(session, 1)
+            repository.updateSession(session)
+            repository.flush()
+        }
+
+        then:
+        firestoreCalls("write") == 1 + 70 + 1
+        pages*.id == ["0"]
+        MoveList.fromBytes(pages[0].moves.toBytes()) == session.moves.subList(0, 64)
+        updates.last().get(SessionDocument.MOVE_TAIL_FIELD_NAME).toBytes().length == 1 + 6 * 2
+    }
+
+    def "Taking moves back over a page boundary rewrites the page once it is full again"() {
+        given:
+        batch.commit() >> ApiFutures.immediateFuture([])
+        def session = session()
+        repository.addSession(session)
+        play(session, 65)
+        repository.updateSession(session)
+        repository.flush()
+
+        when: "Two moves are taken back and one other is played"
+        session.removeLastMoves(2)
+        repository.updateSession(session)
+        repository.flush()
+        session.addMove("A1")
+        repository.updateSession(session)
+        repository.flush()
+
+        then:
+        updates*.get(SessionDocument.MOVE_COUNT_FIELD_NAME) == [65, 63, 64]
+        pages*.id == ["0", "0"]
+        MoveList.fromBytes(pages.last().moves.toBytes()).last() == "A1"
+    }
+
+    def "A paged session is read back from its header and pages"() {
+        given: "Seventy moves, after a longer game was taken back to them"
+        def session = session()
+        play(session, 70)
+        def header = SessionDocument.fromSession(session).toHeader(session.moves)
+        def longer = session.moves.copy()
+        longer.addAll(session.moves)
+        def storedPages = MovePageDocument.fromMoves(longer, 0).reverse()
+        givenStored(header, storedPages)
+
+        when:
+        def loaded = repository.getSession(session.id)
+
+        then: "The stale second page is ignored"
+        storedPages*.id == ["1", "0"]
+        loaded.moves == session.moves
+        firestoreCalls("read") == 1
+        firestoreCalls("query") == 1
+    }
+
+    def "Missing move pages are not read back as a shorter game"() {
+        given:
+        def session = session()
+        play(session, 70)
+        def header = SessionDocument.fromSession(session).toHeader(session.moves)
+
+        when:
+        header.withPages([])
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    private void givenStored(SessionDocument header, List<MovePageDocument> storedPages) {
+        document.get() >> ApiFutures.immediateFuture(Mock(DocumentSnapshot) {
+            toObject(SessionDocument) >> header
+        })
+        pageCollection.get() >> ApiFutures.immediateFuture(Mock(QuerySnapshot) {
+            toObjects(MovePageDocument) >> storedPages
+        })
+    }
+
+    def "Without the store a move only updates the header of the document read before"() {
+        given: "A game of seventy moves stored in pages"
+        def uncached = new SessionRepository(firestore, meterRegistry, false, 600000)
+        batch.commit() >> ApiFutures.immediateFuture([])
+        def session = session()
+        play(session, 70)
+        givenStored(SessionDocument.fromSession(session).toHeader(session.moves), MovePageDocument.fromMoves(session.moves, 0))
+
+        when:
+        def loaded = uncached.getSession(session.id)
+        play(loaded, 1)
+        uncached.updateSession(loaded)
+
+        then:
+        headers.isEmpty()
+        pages.isEmpty()
+        updates*.get(SessionDocument.MOVE_COUNT_FIELD_NAME) == [71]
+        firestoreCalls("write") == 1
+    }
+
+    def "Listing sessions reads no move pages"() {
+        given: "A game of seventy moves stored in pages"
+        def session = session()
+        play(session, 70)
+        def header = SessionDocument.fromSession(session).toHeader(session.moves)
+        collection.get() >> ApiFutures.immediateFuture(Mock(QuerySnapshot) {
+            getDocuments() >> [Mock(QueryDocumentSnapshot) {
+                toObject(SessionDocument) >> header
+            }]
+        })
+
+        when:
+        def listed = repository.getAllSessions()
+
+        then:
+        listed*.id == [session.id]
+        0 * pageCollection.get()
+        firestoreCalls("query") == 1
+    }
+}
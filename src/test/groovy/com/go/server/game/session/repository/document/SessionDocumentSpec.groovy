@@ -0,0 +1,38 @@
+package com.go.server.game.session.repository.document
+
+import com.go.server.game.session.model.Colors
+import com.go.server.game.session.model.Player
+import com.go.server.game.session.model.Session
+import spock.lang.Specification
+
+import java.time.Instant
+
+class SessionDocumentSpec extends Specification {
+
+    private Session session() {
+        def session = new Session(Instant.now(), null, 9)
+        session.addPlayer(Player.human(UUID.randomUUID(), Colors.BLACK))
+        ["E5", "C3", "PASS"].each { session.addMove(it) }
+        return session
+    }
+
+    def "Moves are stored packed"() {
+        when:
+        def document = SessionDocument.fromSession(session())
+
+        then:
+        document.moves == null
+        document.moveData.toBytes().length == 7
+        SessionDocument.toSession(document).moves == ["E5", "C3", "PASS"]
+    }
+
+    def "Documents with moves as strings are still read"() {
+        given: "A document written before moves were packed"
+        def document = SessionDocument.fromSession(session())
+        document.moveData = null
+        document.moves = ["e5", "C3", "pass", "D4"]
+
+        expect:
+        SessionDocument.toSession(document).moves == ["E5", "C3", "PASS", "D4"]
+    }
+}